@@ -0,0 +1,132 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jfree.chart.ChartUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ext.ojalgo.jfree.chart.JFreeChartAdaptor;
+import ext.ojalgo.jfree.chart.JFreeChartBuilder;
+
+/**
+ * Measures the 4 phases of producing a chart separately:
+ * <ol>
+ * <li>ingest - creating a builder and adding the data to it</li>
+ * <li>plot - {@link JFreeChartBuilder#build()} (makePlot and the JFreeChart instance)</li>
+ * <li>rasterise - drawing the chart to a {@link BufferedImage}</li>
+ * <li>encode - encoding that image as PNG</li>
+ * </ol>
+ * Subclasses generate the data in {@link #generate()} and add it to a new builder in {@link #newBuilder()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true" })
+public abstract class AbstractChartBenchmark {
+
+    static final int HEIGHT = 600;
+    static final int WIDTH = 1200;
+
+    @Param({ "100", "10000" })
+    public int points;
+
+    @Param({ "1", "10" })
+    public int series;
+
+    private JFreeChartBuilder<?> myBuilder;
+    private JFreeChartAdaptor myChart;
+    private BufferedImage myImage;
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return ChartUtils.encodeAsPNG(myImage);
+    }
+
+    @Benchmark
+    public JFreeChartBuilder<?> ingest() {
+        return this.newBuilder();
+    }
+
+    @Benchmark
+    public JFreeChartAdaptor plot() {
+        if (this.isReusable()) {
+            return myBuilder.build();
+        } else {
+            return this.ingest().build();
+        }
+    }
+
+    @Benchmark
+    public BufferedImage rasterise() {
+        return myChart.getDelegate().createBufferedImage(WIDTH, HEIGHT);
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        this.generate();
+
+        myBuilder = this.ingest();
+
+        myChart = this.isReusable() ? myBuilder.build() : this.ingest().build();
+        myChart.setWidth(WIDTH);
+        myChart.setHeight(HEIGHT);
+
+        myImage = myChart.getDelegate().createBufferedImage(WIDTH, HEIGHT);
+    }
+
+    /**
+     * Generate the data (ojAlgo data structures) that {@link #newBuilder()} will add to a builder.
+     */
+    protected abstract void generate();
+
+    /**
+     * @return A new builder with the generated data added to it
+     */
+    protected abstract JFreeChartBuilder<?> newBuilder();
+
+    /**
+     * @return false if {@link JFreeChartBuilder#build()} modifies the builder so that it can't be called
+     *         repeatedly.
+     */
+    protected boolean isReusable() {
+        return true;
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.benchmark;
+
+import java.util.Random;
+
+import ext.ojalgo.jfree.chart.BarChartBuilder;
+import ext.ojalgo.jfree.chart.JFreeChartBuilder;
+
+/**
+ * Here "points" is the number of categories (columns) and "series" the number of rows.
+ */
+public class BarChartBenchmark extends AbstractChartBenchmark {
+
+    private double[][] myValues;
+
+    @Override
+    protected void generate() {
+
+        final Random tmpRandom = new Random(123L);
+
+        myValues = new double[series][points];
+        for (int s = 0; s < series; s++) {
+            for (int i = 0; i < points; i++) {
+                myValues[s][i] = tmpRandom.nextDouble();
+            }
+        }
+    }
+
+    @Override
+    protected JFreeChartBuilder<?> newBuilder() {
+        final BarChartBuilder retVal = new BarChartBuilder();
+        for (int s = 0; s < series; s++) {
+            final String tmpRowKey = "Series-" + s;
+            for (int i = 0; i < points; i++) {
+                retVal.value(tmpRowKey, i, myValues[s][i]);
+            }
+        }
+        return retVal;
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.ojalgo.finance.portfolio.SimpleAsset;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.type.CalendarDateDuration;
+import org.ojalgo.type.CalendarDateUnit;
+
+import ext.ojalgo.jfree.chart.JFreeChartBuilder;
+import ext.ojalgo.jfree.chart.MonteCarloBuilder;
+
+/**
+ * Here "points" is the number of simulated (weekly) steps and "series" the number of assets. The number of
+ * scenarios is fixed.
+ */
+public class MonteCarloBenchmark extends AbstractChartBenchmark {
+
+    static final int SCENARIOS = 100;
+
+    private List<SimpleAsset> myAssets;
+    private Primitive64Store myCorrelations;
+
+    @Override
+    protected void generate() {
+
+        final Random tmpRandom = new Random(123L);
+
+        myAssets = new ArrayList<>(series);
+        for (int s = 0; s < series; s++) {
+            myAssets.add(new SimpleAsset(0.05 + (0.05 * tmpRandom.nextDouble()), 0.10 + (0.20 * tmpRandom.nextDouble()), 1.0 / series));
+        }
+
+        myCorrelations = Primitive64Store.FACTORY.makeEye(series, series);
+    }
+
+    @Override
+    protected JFreeChartBuilder<?> newBuilder() {
+        final MonteCarloBuilder retVal = new MonteCarloBuilder(myCorrelations, myAssets);
+        retVal.scenarios(SCENARIOS).resolution(CalendarDateUnit.WEEK).range(new CalendarDateDuration(points, CalendarDateUnit.WEEK));
+        return retVal;
+    }
+
+    /**
+     * The simulation happens in makePlot, and each call adds series to the builder.
+     */
+    @Override
+    protected boolean isReusable() {
+        return false;
+    }
+
+}
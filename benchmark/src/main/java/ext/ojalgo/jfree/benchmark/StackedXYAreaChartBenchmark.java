@@ -0,0 +1,60 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.benchmark;
+
+import java.util.Random;
+
+import org.ojalgo.series.NumberSeries;
+import org.ojalgo.type.ColourData;
+
+import ext.ojalgo.jfree.chart.JFreeChartBuilder;
+import ext.ojalgo.jfree.chart.StackedXYAreaChartBuilder;
+
+public class StackedXYAreaChartBenchmark extends AbstractChartBenchmark {
+
+    private NumberSeries<Double>[] myData;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void generate() {
+
+        final Random tmpRandom = new Random(123L);
+
+        myData = (NumberSeries<Double>[]) new NumberSeries<?>[series];
+        for (int s = 0; s < series; s++) {
+            myData[s] = new NumberSeries<Double>().name("Series-" + s).colour(ColourData.random());
+            for (int i = 0; i < points; i++) {
+                myData[s].put(Double.valueOf(i), Double.valueOf(tmpRandom.nextDouble()));
+            }
+        }
+    }
+
+    @Override
+    protected JFreeChartBuilder<?> newBuilder() {
+        final StackedXYAreaChartBuilder retVal = new StackedXYAreaChartBuilder();
+        for (final NumberSeries<Double> tmpSeries : myData) {
+            retVal.addSeries(tmpSeries, null);
+        }
+        return retVal;
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.ojalgo.ProgrammingError;
+
+/**
+ * Builds and renders many charts using a fixed number of worker threads. Results are delivered, on the
+ * calling thread, in the order the charts complete - the {@link Sink} does not need to be thread safe. A
+ * failure only affects the chart that failed.
+ * <p>
+ * The builders (and charts) must not be shared between jobs.
+ */
+public final class BatchRenderer implements AutoCloseable {
+
+    public static final class Job {
+
+        public static Job of(final ChartBuilder<?, ?> builder, final int width, final int height) {
+            ProgrammingError.throwIfNull(builder);
+            return new Job(builder, null, width, height);
+        }
+
+        public static Job of(final ChartBuilder.ChartResource<?> chart, final int width, final int height) {
+            ProgrammingError.throwIfNull(chart);
+            return new Job(null, chart, width, height);
+        }
+
+        public final ChartBuilder<?, ?> builder;
+        public final ChartBuilder.ChartResource<?> chart;
+        public final int height;
+        public final int width;
+
+        private Job(final ChartBuilder<?, ?> builder, final ChartBuilder.ChartResource<?> chart, final int width, final int height) {
+
+            super();
+
+            this.builder = builder;
+            this.chart = chart;
+            this.width = width;
+            this.height = height;
+        }
+
+        byte[] render() {
+
+            final ChartBuilder.ChartResource<?> tmpChart = chart != null ? chart : builder.build();
+
+            tmpChart.setWidth(width);
+            tmpChart.setHeight(height);
+
+            return tmpChart.toByteArray();
+        }
+
+    }
+
+    public static interface Sink {
+
+        void onFailure(Job job, Throwable cause);
+
+        void onSuccess(Job job, byte[] image);
+
+    }
+
+    private static final class Result {
+
+        final Throwable cause;
+        final byte[] image;
+        final Job job;
+
+        Result(final Job job, final byte[] image, final Throwable cause) {
+
+            super();
+
+            this.job = job;
+            this.image = image;
+            this.cause = cause;
+        }
+
+    }
+
+    private final ExecutorService myExecutor;
+    private final int myParallelism;
+
+    /**
+     * One worker thread per available processor
+     */
+    public BatchRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchRenderer(final int parallelism) {
+
+        super();
+
+        myParallelism = Math.max(1, parallelism);
+
+        myExecutor = Executors.newFixedThreadPool(myParallelism, new DaemonThreadFactory("batch"));
+    }
+
+    public void close() {
+        myExecutor.shutdown();
+    }
+
+    /**
+     * Blocks until all jobs are done. At most 2 x parallelism jobs are in flight at any time, so the jobs
+     * may be generated lazily by the {@link Iterable}.
+     */
+    public void render(final Iterable<Job> jobs, final Sink sink) throws InterruptedException {
+
+        final CompletionService<Result> tmpService = new ExecutorCompletionService<>(myExecutor);
+        final int tmpLimit = 2 * myParallelism;
+
+        final Iterator<Job> tmpIterator = jobs.iterator();
+        int tmpInFlight = 0;
+
+        while (tmpIterator.hasNext() || (tmpInFlight > 0)) {
+
+            while ((tmpInFlight < tmpLimit) && tmpIterator.hasNext()) {
+                final Job tmpJob = tmpIterator.next();
+                tmpService.submit(() -> {
+                    try {
+                        return new Result(tmpJob, tmpJob.render(), null);
+                    } catch (final Throwable cause) {
+                        return new Result(tmpJob, null, cause);
+                    }
+                });
+                tmpInFlight++;
+            }
+
+            final Future<Result> tmpFuture = tmpService.take();
+            tmpInFlight--;
+
+            final Result tmpResult;
+            try {
+                tmpResult = tmpFuture.get();
+            } catch (final ExecutionException cause) {
+                // Can't happen - render failures are captured in the Result
+                throw new IllegalStateException(cause);
+            }
+
+            if (tmpResult.cause != null) {
+                sink.onFailure(tmpResult.job, tmpResult.cause);
+            } else {
+                sink.onSuccess(tmpResult.job, tmpResult.image);
+            }
+        }
+    }
+
+}
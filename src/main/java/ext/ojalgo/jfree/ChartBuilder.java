@@ -22,6 +22,11 @@
 package ext.ojalgo.jfree;
 
 import java.awt.Paint;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class ChartBuilder<C extends ChartBuilder.ChartResource<?>, B extends ChartBuilder<C, B>> {
 
@@ -37,6 +42,14 @@ public abstract class ChartBuilder<C extends ChartBuilder.ChartResource<?>, B ex
 
         int getWidth();
 
+        /**
+         * {@link #toByteArray()} on one of the executor's threads. The chart must not be modified until the
+         * future completes.
+         */
+        default CompletableFuture<byte[]> renderAsync(final ChartExecutor executor) {
+            return executor.submit(this::toByteArray);
+        }
+
         void setBackground(Paint aPaint);
 
         void setHeight(int aHeight);
@@ -45,6 +58,39 @@ public abstract class ChartBuilder<C extends ChartBuilder.ChartResource<?>, B ex
 
         byte[] toByteArray();
 
+        /**
+         * The default implementation copies {@link #toByteArray()}.
+         *
+         * @param sizeHint The expected encoded size in bytes - the initial capacity of the buffer
+         * @return A direct buffer, ready to be read, containing the encoded image
+         */
+        default ByteBuffer toByteBuffer(final int sizeHint) {
+            final byte[] tmpBytes = this.toByteArray();
+            final ByteBuffer retVal = ByteBuffer.allocateDirect(tmpBytes.length);
+            retVal.put(tmpBytes);
+            retVal.flip();
+            return retVal;
+        }
+
+        /**
+         * Stream the encoded image to the output. The output is not closed. The default implementation writes
+         * {@link #toByteArray()}.
+         */
+        default void writeTo(final OutputStream output) throws IOException {
+            output.write(this.toByteArray());
+        }
+
+        /**
+         * Stream the encoded image to the channel. The channel is not closed. The default implementation
+         * writes {@link #toByteArray()}.
+         */
+        default void writeTo(final WritableByteChannel channel) throws IOException {
+            final ByteBuffer tmpBuffer = ByteBuffer.wrap(this.toByteArray());
+            while (tmpBuffer.hasRemaining()) {
+                channel.write(tmpBuffer);
+            }
+        }
+
     }
 
     public static enum Orientation {
@@ -57,4 +103,12 @@ public abstract class ChartBuilder<C extends ChartBuilder.ChartResource<?>, B ex
 
     public abstract C build();
 
+    /**
+     * {@link #build()} on one of the executor's threads. The builder must not be modified until the future
+     * completes.
+     */
+    public final CompletableFuture<C> buildAsync(final ChartExecutor executor) {
+        return executor.submit(this::build);
+    }
+
 }
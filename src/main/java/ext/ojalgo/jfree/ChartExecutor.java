@@ -0,0 +1,157 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import org.ojalgo.ProgrammingError;
+
+/**
+ * Executes {@link ChartBuilder#buildAsync(ChartExecutor)} and
+ * {@link ChartBuilder.ChartResource#renderAsync(ChartExecutor)} tasks. The number of tasks in flight (queued
+ * or running) is bounded - when that limit is reached further tasks are not queued, their futures complete
+ * exceptionally, at once, with a {@link RejectedExecutionException}. That way the caller, rather than an
+ * ever growing queue, deals with overload.
+ */
+public final class ChartExecutor implements AutoCloseable {
+
+    /**
+     * @return true if this runtime has virtual threads (Java 21+)
+     */
+    public static boolean isVirtualThreadsSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (final NoSuchMethodException cause) {
+            return false;
+        }
+    }
+
+    /**
+     * One virtual thread per task - the number of tasks in flight is still bounded.
+     *
+     * @param maxInFlight The max number of tasks queued or running
+     * @throws UnsupportedOperationException If this runtime does not have virtual threads
+     * @see #isVirtualThreadsSupported()
+     */
+    public static ChartExecutor virtualThreads(final int maxInFlight) {
+
+        final ExecutorService tmpExecutor;
+        try {
+            // Reflection, so that this still compiles, and runs, on Java 8
+            tmpExecutor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException cause) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this runtime!", cause);
+        }
+
+        return new ChartExecutor(tmpExecutor, maxInFlight);
+    }
+
+    private final int myCapacity;
+    private final ExecutorService myExecutor;
+    private final Semaphore myPermits;
+
+    /**
+     * Any executor - it will be shut down when this is closed.
+     *
+     * @param maxInFlight The max number of tasks queued or running
+     */
+    public ChartExecutor(final ExecutorService executor, final int maxInFlight) {
+
+        super();
+
+        ProgrammingError.throwIfNull(executor);
+
+        myExecutor = executor;
+        myCapacity = Math.max(1, maxInFlight);
+        myPermits = new Semaphore(myCapacity);
+    }
+
+    /**
+     * A fixed number of (daemon) worker threads.
+     *
+     * @param parallelism The number of worker threads
+     * @param queueDepth The max number of tasks waiting for a worker thread
+     */
+    public ChartExecutor(final int parallelism, final int queueDepth) {
+        this(Executors.newFixedThreadPool(Math.max(1, parallelism), new DaemonThreadFactory("async")), Math.max(1, parallelism) + Math.max(0, queueDepth));
+    }
+
+    public void close() {
+        myExecutor.shutdown();
+    }
+
+    /**
+     * @return The max number of tasks queued or running
+     */
+    public int getCapacity() {
+        return myCapacity;
+    }
+
+    /**
+     * @return The number of tasks currently queued or running
+     */
+    public int getInFlight() {
+        return myCapacity - myPermits.availablePermits();
+    }
+
+    <T> CompletableFuture<T> submit(final Supplier<T> task) {
+
+        final CompletableFuture<T> retVal = new CompletableFuture<>();
+
+        if (!myPermits.tryAcquire()) {
+            retVal.completeExceptionally(new RejectedExecutionException("Too many charts in flight: " + myCapacity));
+            return retVal;
+        }
+
+        try {
+            myExecutor.execute(() -> {
+                T tmpResult = null;
+                Throwable tmpCause = null;
+                try {
+                    tmpResult = task.get();
+                } catch (final Throwable cause) {
+                    tmpCause = cause;
+                } finally {
+                    // Release before completing - dependent stages may submit new tasks
+                    myPermits.release();
+                }
+                if (tmpCause != null) {
+                    retVal.completeExceptionally(tmpCause);
+                } else {
+                    retVal.complete(tmpResult);
+                }
+            });
+        } catch (final RejectedExecutionException cause) {
+            myPermits.release();
+            retVal.completeExceptionally(cause);
+        }
+
+        return retVal;
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Daemon threads named "ojAlgo-jfreechart-[purpose]-[pool]-[thread]" - one factory per pool.
+ */
+final class DaemonThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private final String myPrefix;
+    private final AtomicInteger myThreadId = new AtomicInteger();
+
+    DaemonThreadFactory(final String purpose) {
+
+        super();
+
+        myPrefix = "ojAlgo-jfreechart-" + purpose + "-" + COUNTER.incrementAndGet() + "-";
+    }
+
+    public Thread newThread(final Runnable task) {
+        final Thread retVal = new Thread(task, myPrefix + myThreadId.incrementAndGet());
+        retVal.setDaemon(true);
+        return retVal;
+    }
+
+}
@@ -25,6 +25,7 @@ import java.awt.Paint;
 
 import org.jfree.data.general.DefaultKeyedValuesDataset;
 import org.jfree.data.general.KeyedValuesDataset;
+import org.ojalgo.ProgrammingError;
 
 /**
  * @see KeyedValuesDataset
@@ -33,24 +34,86 @@ import org.jfree.data.general.KeyedValuesDataset;
 public abstract class AbstractData1D extends JFreeChartBuilder<AbstractData1D> {
 
     private final DefaultKeyedValuesDataset myDataset = new DefaultKeyedValuesDataset();
+    private TopKeyedValues myTop = null;
+    private DefaultKeyedValuesDataset myTopDataset = null;
 
     protected AbstractData1D() {
         super();
     }
 
+    /**
+     * Only keep (and draw) the keys with the largest values - the rest are summed in to a single "other"
+     * slice. The values are streamed through a bounded heap, so memory use does not depend on the number of
+     * keys. Each key should only be given once - a key that has been merged in to "other" is not recognised
+     * if given again. A value given with the "other" key is added to that slice. Any values already set are
+     * moved over - calling this again changes the number of keys kept, but the values already merged in to
+     * "other" stay there. Charts get a snapshot of the top values as they are when built.
+     *
+     * @param count The max number of keys kept
+     * @param otherKey The key of the slice with the sum of all other values
+     */
+    public AbstractData1D top(final int count, final Comparable<?> otherKey) {
+
+        ProgrammingError.throwIfNull(otherKey);
+
+        myTopDataset = null;
+
+        if (myTop != null) {
+            myTop = myTop.resize(count, otherKey);
+        } else {
+            myTop = new TopKeyedValues(count, otherKey);
+            for (int i = 0; i < myDataset.getItemCount(); i++) {
+                this.offer(myDataset.getKey(i), myDataset.getValue(i));
+            }
+            myDataset.clear();
+        }
+
+        return this;
+    }
+
     public AbstractData1D value(final Comparable<?> aKey, final Number aValue) {
-        myDataset.setValue(aKey, aValue);
+        if (myTop != null) {
+            this.offer(aKey, aValue);
+        } else {
+            myDataset.setValue(aKey, aValue);
+        }
         return this;
     }
 
     public AbstractData1D value(final Comparable<?> aKey, final Number aValue, final Paint aPaint) {
-        myDataset.setValue(aKey, aValue);
+        this.value(aKey, aValue);
         this.putColour(aKey, aPaint);
         return this;
     }
 
+    @Override
+    protected void fingerprint(final Fingerprint fingerprint) {
+        final KeyedValuesDataset tmpDataset = this.getDataset();
+        final int tmpCount = tmpDataset.getItemCount();
+        fingerprint.add(tmpCount);
+        for (int i = 0; i < tmpCount; i++) {
+            fingerprint.add(tmpDataset.getKey(i).toString()).add(tmpDataset.getValue(i));
+        }
+    }
+
+    /**
+     * @return With {@link #top(int, Comparable)} the kept keys, largest first, and the "other" slice
+     */
     protected KeyedValuesDataset getDataset() {
+        if (myTop != null) {
+            if (myTopDataset == null) {
+                myTopDataset = myTop.toDataset();
+            }
+            return myTopDataset;
+        }
         return myDataset;
     }
 
+    private void offer(final Comparable<?> key, final Number value) {
+        if (value != null) {
+            myTop.offer(key, value.doubleValue());
+            myTopDataset = null;
+        }
+    }
+
 }
@@ -22,17 +22,21 @@
 package ext.ojalgo.jfree.chart;
 
 import java.awt.Paint;
+import java.util.List;
 
 import org.jfree.chart.renderer.AbstractRenderer;
 import org.jfree.data.KeyedValues2D;
+import org.jfree.data.category.CategoryDataset;
 import org.jfree.data.general.DefaultKeyedValues2DDataset;
+import org.ojalgo.structure.Access2D;
 
 /**
  * @author apete
  */
 public abstract class AbstractData2D extends JFreeChartBuilder<AbstractData2D> {
 
-    private final DefaultKeyedValues2DDataset myDataset = new DefaultKeyedValues2DDataset();
+    private final IndexedCategoryDataset myDataset = new IndexedCategoryDataset();
+    private Access2DCategoryDataset myView = null;
 
     protected AbstractData2D() {
         super();
@@ -43,7 +47,22 @@ public abstract class AbstractData2D extends JFreeChartBuilder<AbstractData2D> {
         return this;
     }
 
+    /**
+     * Chart the data as is - a view, not a copy. Replaces any values set so far. Setting values after this
+     * copies the data, to be able to modify it.
+     *
+     * @param rowKeys One key per row of the data (series)
+     * @param columnKeys One key per column of the data (categories)
+     * @see Access2DCategoryDataset
+     */
+    public AbstractData2D data(final Access2D<?> data, final List<? extends Comparable<?>> rowKeys, final List<? extends Comparable<?>> columnKeys) {
+        myView = new Access2DCategoryDataset(data, rowKeys, columnKeys);
+        myDataset.clear();
+        return this;
+    }
+
     public AbstractData2D value(final Comparable<?> aRowKey, final Comparable<?> aColumnKey, final Number aValue) {
+        this.materialise();
         myDataset.setValue(aValue, aRowKey, aColumnKey);
         return this;
     }
@@ -52,13 +71,60 @@ public abstract class AbstractData2D extends JFreeChartBuilder<AbstractData2D> {
      * It seems JFreeChart assumes row=series and column=category, and the paint is associated with a series
      */
     public AbstractData2D value(final Comparable<?> aRowKey, final Comparable<?> aColumnKey, final Number aValue, final Paint aPaint) {
+        this.materialise();
         myDataset.setValue(aValue, aRowKey, aColumnKey);
         this.putColour(aRowKey, aPaint);
         return this;
     }
 
+    /**
+     * Set a block of values at once - much faster than calling {@link #value(Comparable, Comparable, Number)}
+     * for each.
+     *
+     * @param someValues [rowKeys.size()][columnKeys.size()], NaN means missing
+     * @see IndexedCategoryDataset#values(List, List, double[][])
+     */
+    public AbstractData2D values(final List<? extends Comparable<?>> rowKeys, final List<? extends Comparable<?>> columnKeys, final double[][] someValues) {
+        this.materialise();
+        myDataset.values(rowKeys, columnKeys, someValues);
+        return this;
+    }
+
+    @Override
+    protected void fingerprint(final Fingerprint fingerprint) {
+        if (myView != null) {
+            myView.fingerprint(fingerprint);
+        } else {
+            myDataset.fingerprint(fingerprint);
+        }
+    }
+
+    /**
+     * @return An {@link IndexedCategoryDataset}, or an {@link Access2DCategoryDataset} view if
+     *         {@link #data(Access2D, List, List)} was used
+     */
+    protected CategoryDataset getCategoryDataset() {
+        return myView != null ? myView : myDataset;
+    }
+
+    /**
+     * @return A copy of the values set so far - changing it does not change the chart.
+     * @deprecated Use {@link #getCategoryDataset()} instead - the values are no longer stored in a
+     *             {@link DefaultKeyedValues2DDataset}.
+     */
+    @Deprecated
     protected DefaultKeyedValues2DDataset getDataset() {
-        return myDataset;
+
+        final CategoryDataset tmpSource = this.getCategoryDataset();
+
+        final DefaultKeyedValues2DDataset retVal = new DefaultKeyedValues2DDataset();
+        for (int r = 0; r < tmpSource.getRowCount(); r++) {
+            for (int c = 0; c < tmpSource.getColumnCount(); c++) {
+                retVal.setValue(tmpSource.getValue(r, c), tmpSource.getRowKey(r), tmpSource.getColumnKey(c));
+            }
+        }
+
+        return retVal;
     }
 
     protected void setColours(final AbstractRenderer renderer, final KeyedValues2D dataset) {
@@ -70,4 +136,22 @@ public abstract class AbstractData2D extends JFreeChartBuilder<AbstractData2D> {
         }
     }
 
+    /**
+     * Copy the view, if any, in to the (modifiable) dataset
+     */
+    private void materialise() {
+        if (myView != null) {
+            final int tmpRowCount = myView.getRowCount();
+            final int tmpColumnCount = myView.getColumnCount();
+            final double[][] tmpValues = new double[tmpRowCount][tmpColumnCount];
+            for (int r = 0; r < tmpRowCount; r++) {
+                for (int c = 0; c < tmpColumnCount; c++) {
+                    tmpValues[r][c] = myView.getDoubleValue(r, c);
+                }
+            }
+            myDataset.values(myView.rowKeys(), myView.columnKeys(), tmpValues);
+            myView = null;
+        }
+    }
+
 }
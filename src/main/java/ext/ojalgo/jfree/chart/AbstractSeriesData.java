@@ -24,6 +24,8 @@ package ext.ojalgo.jfree.chart;
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import java.awt.Shape;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -37,6 +39,22 @@ import org.ojalgo.type.ComparableNumber;
 
 public abstract class AbstractSeriesData<K, V, B extends AbstractSeriesData<K, V, B>> extends JFreeChartBuilder<B> {
 
+    /**
+     * How to reduce series with (many) more points than there are horizontal pixels.
+     */
+    public static enum Downsampling {
+
+        /**
+         * Largest-Triangle-Three-Buckets - about 2 points per pixel chosen to preserve the visual shape.
+         */
+        LTTB,
+        /**
+         * The min and max point of each pixel column - preserves all extremes.
+         */
+        MIN_MAX;
+
+    }
+
     static final class ContinuousDistributionWrapper extends Number implements ComparableNumber<ContinuousDistributionWrapper> {
 
         private final ContinuousDistribution myDistribution;
@@ -70,6 +88,10 @@ public abstract class AbstractSeriesData<K, V, B extends AbstractSeriesData<K, V
             return (long) myDistribution.getExpected();
         }
 
+        public ContinuousDistribution getDistribution() {
+            return myDistribution;
+        }
+
         public double getLowerConfidenceQuantile(final double confidence) {
             return myDistribution.getQuantile((ONE - confidence) / TWO);
         }
@@ -155,12 +177,67 @@ public abstract class AbstractSeriesData<K, V, B extends AbstractSeriesData<K, V
 
     }
 
+    /**
+     * The one (reused) downsampling view of this builder's dataset
+     */
+    private DownsampledXYDataset myDownsampled = null;
+    private Downsampling myDownsampling = null;
     private final HashMap<Comparable<?>, Shape> myShapes = new HashMap<>();
 
     protected AbstractSeriesData() {
         super();
     }
 
+    /**
+     * Opt-in to have each series reduced to a few points per horizontal pixel (of the chart width) when
+     * rendered. The full data is still used to set the axes ranges.
+     *
+     * @param downsampling null turns it off
+     */
+    @SuppressWarnings("unchecked")
+    public final B downsample(final Downsampling downsampling) {
+        if ((downsampling != myDownsampling) && (myDownsampled != null)) {
+            // Or it would keep listening to the dataset, and keep the previous charts alive
+            myDownsampled.detach();
+            myDownsampled = null;
+        }
+        myDownsampling = downsampling;
+        return (B) this;
+    }
+
+    /**
+     * @return The dataset as is, or wrapped in a view that downsamples it at render time. The same view is
+     *         returned (shared by all charts built) until the downsampling mode changes.
+     */
+    protected final IntervalXYDataset downsampled(final IntervalXYDataset dataset) {
+
+        if (myDownsampling == null) {
+            return dataset;
+        }
+
+        if ((myDownsampled == null) || (myDownsampled.getDataset() != dataset)) {
+            if (myDownsampled != null) {
+                myDownsampled.detach();
+            }
+            myDownsampled = new DownsampledXYDataset(dataset, myDownsampling);
+        }
+
+        return myDownsampled;
+    }
+
+    @Override
+    protected void fingerprint(final Fingerprint fingerprint) {
+
+        fingerprint.add(myDownsampling != null ? myDownsampling.name() : null);
+
+        final ArrayList<Entry<Comparable<?>, Shape>> tmpShapes = new ArrayList<>(myShapes.entrySet());
+        tmpShapes.sort(Comparator.comparing(entry -> entry.getKey().toString()));
+        fingerprint.add(tmpShapes.size());
+        for (final Entry<Comparable<?>, Shape> tmpEntry : tmpShapes) {
+            fingerprint.add(tmpEntry.getKey().toString()).add(tmpEntry.getValue());
+        }
+    }
+
     protected abstract IntervalXYDataset getIntervalXYData();
 
     protected final Shape getShape(final Object key) {
@@ -0,0 +1,246 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.UnknownKeyException;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.category.CategoryRangeInfo;
+import org.jfree.data.general.AbstractDataset;
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.structure.Access2D;
+
+/**
+ * A {@link CategoryDataset} view of an {@link Access2D} - rows are series and columns are categories. The
+ * values are read, when drawing, directly from the Access2D. Nothing is copied, but JFreeChart's API still
+ * boxes each value read. NaN means missing (null).
+ * <p>
+ * Changes to the Access2D are seen the next time the chart is drawn, but no change events are fired. For
+ * that reason the (range) bounds are not cached, but they are found without boxing each value.
+ */
+public final class Access2DCategoryDataset extends AbstractDataset implements CategoryDataset, CategoryRangeInfo, RangeInfo {
+
+    private static final long serialVersionUID = 1L;
+
+    private static HashMap<Comparable<?>, Integer> index(final List<Comparable<?>> keys) {
+        final HashMap<Comparable<?>, Integer> retVal = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (retVal.put(keys.get(i), i) != null) {
+                throw new IllegalArgumentException("Duplicate key: " + keys.get(i));
+            }
+        }
+        return retVal;
+    }
+
+    private final HashMap<Comparable<?>, Integer> myColumnIndices;
+    private final List<Comparable<?>> myColumnKeys;
+    private final Access2D<?> myData;
+    private final HashMap<Comparable<?>, Integer> myRowIndices;
+    private final List<Comparable<?>> myRowKeys;
+
+    /**
+     * @param rowKeys One key per row of the data (series)
+     * @param columnKeys One key per column of the data (categories)
+     */
+    public Access2DCategoryDataset(final Access2D<?> data, final List<? extends Comparable<?>> rowKeys, final List<? extends Comparable<?>> columnKeys) {
+
+        super();
+
+        ProgrammingError.throwIfNull(data, rowKeys, columnKeys);
+
+        if ((data.countRows() != rowKeys.size()) || (data.countColumns() != columnKeys.size())) {
+            throw new IllegalArgumentException("The number of keys must match the dimensions of the data!");
+        }
+
+        myData = data;
+        myRowKeys = Collections.unmodifiableList(new ArrayList<>(rowKeys));
+        myColumnKeys = Collections.unmodifiableList(new ArrayList<>(columnKeys));
+        myRowIndices = Access2DCategoryDataset.index(myRowKeys);
+        myColumnIndices = Access2DCategoryDataset.index(myColumnKeys);
+    }
+
+    public int getColumnCount() {
+        return myColumnKeys.size();
+    }
+
+    public int getColumnIndex(final Comparable key) {
+        final Integer retVal = myColumnIndices.get(key);
+        return retVal != null ? retVal : -1;
+    }
+
+    public Comparable getColumnKey(final int column) {
+        return myColumnKeys.get(column);
+    }
+
+    public List getColumnKeys() {
+        return myColumnKeys;
+    }
+
+    public Access2D<?> getData() {
+        return myData;
+    }
+
+    /**
+     * @return NaN for a missing value
+     */
+    public double getDoubleValue(final int row, final int column) {
+        return myData.doubleValue(row, column);
+    }
+
+    public Range getRangeBounds(final boolean includeInterval) {
+        return this.getRangeBounds(myRowKeys, includeInterval);
+    }
+
+    public Range getRangeBounds(final List visibleSeriesKeys, final boolean includeInterval) {
+
+        double tmpMin = Double.POSITIVE_INFINITY;
+        double tmpMax = Double.NEGATIVE_INFINITY;
+
+        final int tmpColumnCount = myColumnKeys.size();
+        for (final Object tmpKey : visibleSeriesKeys) {
+            final Integer tmpRow = myRowIndices.get(tmpKey);
+            if (tmpRow != null) {
+                for (int c = 0; c < tmpColumnCount; c++) {
+                    final double tmpValue = myData.doubleValue(tmpRow, c);
+                    if (!Double.isNaN(tmpValue)) {
+                        tmpMin = Math.min(tmpMin, tmpValue);
+                        tmpMax = Math.max(tmpMax, tmpValue);
+                    }
+                }
+            }
+        }
+
+        return tmpMin <= tmpMax ? new Range(tmpMin, tmpMax) : null;
+    }
+
+    public double getRangeLowerBound(final boolean includeInterval) {
+        final Range tmpRange = this.getRangeBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getLowerBound() : Double.NaN;
+    }
+
+    public double getRangeUpperBound(final boolean includeInterval) {
+        final Range tmpRange = this.getRangeBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getUpperBound() : Double.NaN;
+    }
+
+    public int getRowCount() {
+        return myRowKeys.size();
+    }
+
+    public int getRowIndex(final Comparable key) {
+        final Integer retVal = myRowIndices.get(key);
+        return retVal != null ? retVal : -1;
+    }
+
+    public Comparable getRowKey(final int row) {
+        return myRowKeys.get(row);
+    }
+
+    public List getRowKeys() {
+        return myRowKeys;
+    }
+
+    /**
+     * The same as {@link org.jfree.data.general.DatasetUtils#findStackedRangeBounds(CategoryDataset, double)}
+     * but without boxing each value.
+     */
+    public Range getStackedRangeBounds(final double base) {
+
+        double tmpMin = Double.POSITIVE_INFINITY;
+        double tmpMax = Double.NEGATIVE_INFINITY;
+
+        final int tmpRowCount = myRowKeys.size();
+        for (int c = 0, tmpLimit = myColumnKeys.size(); c < tmpLimit; c++) {
+            double tmpNegative = base;
+            double tmpPositive = base;
+            for (int r = 0; r < tmpRowCount; r++) {
+                final double tmpValue = myData.doubleValue(r, c);
+                if (tmpValue > 0.0) {
+                    tmpPositive += tmpValue;
+                } else if (tmpValue < 0.0) {
+                    tmpNegative += tmpValue;
+                }
+            }
+            tmpMin = Math.min(tmpMin, tmpNegative);
+            tmpMax = Math.max(tmpMax, tmpPositive);
+        }
+
+        return tmpMin <= tmpMax ? new Range(tmpMin, tmpMax) : null;
+    }
+
+    public Number getValue(final Comparable rowKey, final Comparable columnKey) {
+
+        final int tmpRow = this.getRowIndex(rowKey);
+        if (tmpRow < 0) {
+            throw new UnknownKeyException("Unrecognised row key: " + rowKey);
+        }
+        final int tmpColumn = this.getColumnIndex(columnKey);
+        if (tmpColumn < 0) {
+            throw new UnknownKeyException("Unrecognised column key: " + columnKey);
+        }
+
+        return this.getValue(tmpRow, tmpColumn);
+    }
+
+    public Number getValue(final int row, final int column) {
+        final double tmpValue = myData.doubleValue(row, column);
+        return Double.isNaN(tmpValue) ? null : Double.valueOf(tmpValue);
+    }
+
+    /**
+     * The same as {@link #getColumnKeys()}, but typed
+     */
+    List<Comparable<?>> columnKeys() {
+        return myColumnKeys;
+    }
+
+    void fingerprint(final Fingerprint fingerprint) {
+        final int tmpRowCount = myRowKeys.size();
+        final int tmpColumnCount = myColumnKeys.size();
+        fingerprint.add(tmpRowCount).add(tmpColumnCount);
+        for (int r = 0; r < tmpRowCount; r++) {
+            fingerprint.add(myRowKeys.get(r).toString());
+        }
+        for (int c = 0; c < tmpColumnCount; c++) {
+            fingerprint.add(myColumnKeys.get(c).toString());
+        }
+        for (int r = 0; r < tmpRowCount; r++) {
+            for (int c = 0; c < tmpColumnCount; c++) {
+                fingerprint.add(myData.doubleValue(r, c));
+            }
+        }
+    }
+
+    /**
+     * The same as {@link #getRowKeys()}, but typed
+     */
+    List<Comparable<?>> rowKeys() {
+        return myRowKeys;
+    }
+
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.util.Arrays;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.Range;
+import org.jfree.data.xy.AbstractIntervalXYDataset;
+import org.jfree.data.xy.TableXYDataset;
+import org.jfree.data.xy.XYDataset;
+
+/**
+ * An immutable {@link TableXYDataset} made from series that do not (necessarily) share x-values. The
+ * x-values of all series are sort-merged, once, in to a shared primitive x column, and each series gets a
+ * y column aligned with it. Where a series has no value for an x-value the y-value is NaN (a gap - the
+ * stacked renderers treat it as 0). Series that already have exactly the shared x-values keep their own y
+ * column, it is not copied.
+ * <p>
+ * The stack totals, and the stacked range bounds, are calculated once when the dataset is created.
+ */
+public final class AlignedTableXYDataset extends AbstractIntervalXYDataset implements TableXYDataset, DomainInfo {
+
+    /**
+     * A binary min-heap of series indices, ordered by the x-value at each series' current position.
+     */
+    private static final class Heads {
+
+        private final int[] myHeap;
+        private final int[] myPositions;
+        private int mySize = 0;
+        private final double[][] myX;
+
+        Heads(final double[][] x, final int[] counts) {
+
+            super();
+
+            myX = x;
+            myPositions = new int[x.length];
+            myHeap = new int[x.length];
+
+            for (int s = 0; s < x.length; s++) {
+                if (counts[s] > 0) {
+                    myHeap[mySize++] = s;
+                }
+            }
+            for (int i = (mySize / 2) - 1; i >= 0; i--) {
+                this.down(i);
+            }
+        }
+
+        boolean isEmpty() {
+            return mySize == 0;
+        }
+
+        double peek() {
+            return this.key(myHeap[0]);
+        }
+
+        /**
+         * Advance the series at the top of the heap one position.
+         */
+        void pop(final int[] counts) {
+            final int tmpSeries = myHeap[0];
+            if (++myPositions[tmpSeries] < counts[tmpSeries]) {
+                this.down(0);
+            } else {
+                myHeap[0] = myHeap[--mySize];
+                if (mySize > 0) {
+                    this.down(0);
+                }
+            }
+        }
+
+        private void down(final int index) {
+            int tmpIndex = index;
+            final int tmpSeries = myHeap[tmpIndex];
+            final double tmpKey = this.key(tmpSeries);
+            for (int tmpChild = (2 * tmpIndex) + 1; tmpChild < mySize; tmpChild = (2 * tmpIndex) + 1) {
+                if (((tmpChild + 1) < mySize) && (this.key(myHeap[tmpChild + 1]) < this.key(myHeap[tmpChild]))) {
+                    tmpChild++;
+                }
+                if (this.key(myHeap[tmpChild]) < tmpKey) {
+                    myHeap[tmpIndex] = myHeap[tmpChild];
+                    tmpIndex = tmpChild;
+                } else {
+                    break;
+                }
+            }
+            myHeap[tmpIndex] = tmpSeries;
+        }
+
+        private double key(final int series) {
+            return myX[series][myPositions[series]];
+        }
+
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @return The y column aligned with the merged x column - NaN where the series has no value
+     */
+    private static double[] align(final double[] merged, final double[] x, final double[] y, final int count) {
+
+        if ((count == merged.length) && ((x == merged) || Arrays.equals(x, merged))) {
+            return y;
+        }
+
+        final double[] retVal = new double[merged.length];
+        Arrays.fill(retVal, Double.NaN);
+
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            while (merged[j] < x[i]) {
+                j++;
+            }
+            retVal[j] = y[i]; // With duplicate x-values the last one wins
+        }
+
+        return retVal;
+    }
+
+    /**
+     * k-way merge of the (ascending) x columns in to one column of distinct x-values
+     */
+    private static double[] merge(final double[][] x, final int[] counts) {
+
+        int tmpCapacity = 0;
+        for (final int tmpCount : counts) {
+            tmpCapacity = Math.max(tmpCapacity, tmpCount);
+        }
+
+        double[] retVal = new double[tmpCapacity];
+        int tmpSize = 0;
+
+        final Heads tmpHeads = new Heads(x, counts);
+        while (!tmpHeads.isEmpty()) {
+            final double tmpValue = tmpHeads.peek();
+            if ((tmpSize == 0) || (retVal[tmpSize - 1] != tmpValue)) {
+                if (tmpSize == retVal.length) {
+                    retVal = Arrays.copyOf(retVal, Math.max(16, tmpSize + (tmpSize >> 1)));
+                }
+                retVal[tmpSize++] = tmpValue;
+            }
+            tmpHeads.pop(counts);
+        }
+
+        return tmpSize == retVal.length ? retVal : Arrays.copyOf(retVal, tmpSize);
+    }
+
+    /**
+     * A stable, bottom-up, merge sort of the indices [0, count) by x - no boxing.
+     *
+     * @return The indices in x-order
+     */
+    private static int[] order(final double[] x, final int count) {
+
+        int[] retVal = new int[count];
+        for (int i = 0; i < count; i++) {
+            retVal[i] = i;
+        }
+
+        int[] tmpBuffer = new int[count];
+        for (int tmpWidth = 1; tmpWidth < count; tmpWidth *= 2) {
+            for (int tmpLow = 0; tmpLow < count; tmpLow += 2 * tmpWidth) {
+                final int tmpMiddle = Math.min(tmpLow + tmpWidth, count);
+                final int tmpHigh = Math.min(tmpMiddle + tmpWidth, count);
+                int i = tmpLow;
+                int j = tmpMiddle;
+                int k = tmpLow;
+                while ((i < tmpMiddle) && (j < tmpHigh)) {
+                    tmpBuffer[k++] = Double.compare(x[retVal[j]], x[retVal[i]]) < 0 ? retVal[j++] : retVal[i++];
+                }
+                while (i < tmpMiddle) {
+                    tmpBuffer[k++] = retVal[i++];
+                }
+                while (j < tmpHigh) {
+                    tmpBuffer[k++] = retVal[j++];
+                }
+            }
+            final int[] tmpSorted = tmpBuffer;
+            tmpBuffer = retVal;
+            retVal = tmpSorted;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Sort the (x, y) pairs by x
+     */
+    private static void sort(final double[] x, final double[] y, final int count) {
+        final int[] tmpOrder = AlignedTableXYDataset.order(x, count);
+        final double[] tmpX = Arrays.copyOf(x, count);
+        final double[] tmpY = Arrays.copyOf(y, count);
+        for (int i = 0; i < count; i++) {
+            x[i] = tmpX[tmpOrder[i]];
+            y[i] = tmpY[tmpOrder[i]];
+        }
+    }
+
+    private final String[] myKeys;
+    private final double myStackedLowerBound;
+    private final double myStackedUpperBound;
+    private final double[] myTotals;
+    private final double[] myX;
+    private final double[][] myY;
+
+    /**
+     * Creates a snapshot of the dataset. The arrays of a {@link PrimitiveXYDataset} are used as is (not
+     * copied) whenever possible.
+     */
+    public AlignedTableXYDataset(final XYDataset dataset) {
+
+        super();
+
+        final int tmpSeriesCount = dataset.getSeriesCount();
+
+        myKeys = new String[tmpSeriesCount];
+        final double[][] tmpX = new double[tmpSeriesCount][];
+        final double[][] tmpY = new double[tmpSeriesCount][];
+        final int[] tmpCounts = new int[tmpSeriesCount];
+
+        for (int s = 0; s < tmpSeriesCount; s++) {
+            myKeys[s] = dataset.getSeriesKey(s).toString();
+            final PrimitiveXYDataset.Series tmpPrimitive = dataset instanceof PrimitiveXYDataset ? ((PrimitiveXYDataset) dataset).getSeries(s) : null;
+            if (tmpPrimitive instanceof PrimitiveXYDataset.ArraySeries) {
+                final PrimitiveXYDataset.ArraySeries tmpSeries = (PrimitiveXYDataset.ArraySeries) tmpPrimitive;
+                tmpCounts[s] = tmpSeries.count;
+                if (tmpSeries.ascending) {
+                    tmpX[s] = tmpSeries.x;
+                    tmpY[s] = tmpSeries.y;
+                } else {
+                    tmpX[s] = Arrays.copyOf(tmpSeries.x, tmpSeries.count);
+                    tmpY[s] = Arrays.copyOf(tmpSeries.y, tmpSeries.count);
+                    AlignedTableXYDataset.sort(tmpX[s], tmpY[s], tmpSeries.count);
+                }
+            } else {
+                final int tmpCount = dataset.getItemCount(s);
+                tmpCounts[s] = tmpCount;
+                tmpX[s] = new double[tmpCount];
+                tmpY[s] = new double[tmpCount];
+                boolean tmpAscending = true;
+                for (int i = 0; i < tmpCount; i++) {
+                    tmpX[s][i] = dataset.getXValue(s, i);
+                    tmpY[s][i] = dataset.getYValue(s, i);
+                    tmpAscending &= (i == 0) || (tmpX[s][i - 1] <= tmpX[s][i]);
+                }
+                if (!tmpAscending) {
+                    AlignedTableXYDataset.sort(tmpX[s], tmpY[s], tmpCount);
+                }
+            }
+        }
+
+        myX = AlignedTableXYDataset.merge(tmpX, tmpCounts);
+        final int tmpItemCount = myX.length;
+
+        myY = new double[tmpSeriesCount][];
+        for (int s = 0; s < tmpSeriesCount; s++) {
+            myY[s] = AlignedTableXYDataset.align(myX, tmpX[s], tmpY[s], tmpCounts[s]);
+        }
+
+        myTotals = new double[tmpItemCount];
+        double tmpLower = 0.0;
+        double tmpUpper = 0.0;
+        for (int i = 0; i < tmpItemCount; i++) {
+            double tmpPositive = 0.0;
+            double tmpNegative = 0.0;
+            for (int s = 0; s < tmpSeriesCount; s++) {
+                final double tmpValue = myY[s][i];
+                if (tmpValue > 0.0) {
+                    tmpPositive += tmpValue;
+                } else if (tmpValue < 0.0) {
+                    tmpNegative += tmpValue;
+                }
+            }
+            myTotals[i] = tmpPositive + tmpNegative;
+            tmpLower = Math.min(tmpLower, tmpNegative);
+            tmpUpper = Math.max(tmpUpper, tmpPositive);
+        }
+        myStackedLowerBound = tmpLower;
+        myStackedUpperBound = tmpUpper;
+    }
+
+    public Range getDomainBounds(final boolean includeInterval) {
+        return myX.length > 0 ? new Range(myX[0], myX[myX.length - 1]) : null;
+    }
+
+    public double getDomainLowerBound(final boolean includeInterval) {
+        return myX.length > 0 ? myX[0] : Double.NaN;
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    public double getDomainUpperBound(final boolean includeInterval) {
+        return myX.length > 0 ? myX[myX.length - 1] : Double.NaN;
+    }
+
+    public Number getEndX(final int series, final int item) {
+        return myX[item];
+    }
+
+    @Override
+    public double getEndXValue(final int series, final int item) {
+        return myX[item];
+    }
+
+    public Number getEndY(final int series, final int item) {
+        return this.getY(series, item);
+    }
+
+    @Override
+    public double getEndYValue(final int series, final int item) {
+        return myY[series][item];
+    }
+
+    public int getItemCount() {
+        return myX.length;
+    }
+
+    public int getItemCount(final int series) {
+        return myX.length;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return myKeys.length;
+    }
+
+    @Override
+    public Comparable<?> getSeriesKey(final int series) {
+        return myKeys[series];
+    }
+
+    /**
+     * The bounds of the stacked values - negative values stacked down from 0 and positive values stacked up
+     * from 0 - the same as {@link org.jfree.data.general.DatasetUtils#findStackedRangeBounds(TableXYDataset)}
+     * but without iterating.
+     */
+    public Range getStackedRangeBounds() {
+        return new Range(myStackedLowerBound, myStackedUpperBound);
+    }
+
+    public Number getStartX(final int series, final int item) {
+        return myX[item];
+    }
+
+    @Override
+    public double getStartXValue(final int series, final int item) {
+        return myX[item];
+    }
+
+    public Number getStartY(final int series, final int item) {
+        return this.getY(series, item);
+    }
+
+    @Override
+    public double getStartYValue(final int series, final int item) {
+        return myY[series][item];
+    }
+
+    /**
+     * @return The sum of all series' (non-NaN) y-values at this item
+     */
+    public double getTotal(final int item) {
+        return myTotals[item];
+    }
+
+    public Number getX(final int series, final int item) {
+        return myX[item];
+    }
+
+    @Override
+    public double getXValue(final int series, final int item) {
+        return myX[item];
+    }
+
+    public Number getY(final int series, final int item) {
+        final double tmpValue = myY[series][item];
+        return Double.isNaN(tmpValue) ? null : tmpValue;
+    }
+
+    @Override
+    public double getYValue(final int series, final int item) {
+        return myY[series][item];
+    }
+
+}
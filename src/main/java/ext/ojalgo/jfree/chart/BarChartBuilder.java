@@ -30,7 +30,7 @@ import org.jfree.chart.plot.Plot;
 import org.jfree.chart.renderer.category.BarRenderer;
 import org.jfree.chart.renderer.category.StandardBarPainter;
 import org.jfree.chart.urls.StandardCategoryURLGenerator;
-import org.jfree.data.general.DefaultKeyedValues2DDataset;
+import org.jfree.data.category.CategoryDataset;
 
 /**
  * CategoryData
@@ -48,7 +48,7 @@ public class BarChartBuilder extends AbstractData2D {
     @Override
     protected Plot makePlot(final JFreeChartBuilder.PlotParameters parameters) {
 
-        final DefaultKeyedValues2DDataset tmpDataset = this.getDataset();
+        final CategoryDataset tmpDataset = this.getCategoryDataset();
 
         final CategoryAxis tmpCategoryAxis = this.makeCategoryAxis(domain);
 
@@ -0,0 +1,70 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link OutputStream} writing to a (growing) direct {@link ByteBuffer}.
+ */
+final class ByteBufferOutputStream extends OutputStream {
+
+    private ByteBuffer myBuffer;
+
+    ByteBufferOutputStream(final int initialCapacity) {
+        super();
+        myBuffer = ByteBuffer.allocateDirect(Math.max(initialCapacity, 64));
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) {
+        this.ensureRemaining(length);
+        myBuffer.put(bytes, offset, length);
+    }
+
+    @Override
+    public void write(final int b) {
+        this.ensureRemaining(1);
+        myBuffer.put((byte) b);
+    }
+
+    private void ensureRemaining(final int length) {
+        if (myBuffer.remaining() < length) {
+            final int tmpCapacity = Math.max(myBuffer.capacity() * 2, myBuffer.position() + length);
+            final ByteBuffer tmpBuffer = ByteBuffer.allocateDirect(tmpCapacity);
+            myBuffer.flip();
+            tmpBuffer.put(myBuffer);
+            myBuffer = tmpBuffer;
+        }
+    }
+
+    /**
+     * @return The buffer flipped, ready to be read
+     */
+    ByteBuffer toByteBuffer() {
+        final ByteBuffer retVal = myBuffer.duplicate();
+        retVal.flip();
+        return retVal;
+    }
+
+}
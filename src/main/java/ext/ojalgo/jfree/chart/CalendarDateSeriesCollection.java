@@ -22,94 +22,93 @@
 package ext.ojalgo.jfree.chart;
 
 import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.stream.Collectors;
 
-import org.jfree.data.time.FixedMillisecond;
-import org.jfree.data.time.TimeSeries;
-import org.jfree.data.time.TimeSeriesCollection;
-import org.jfree.data.time.TimeSeriesDataItem;
-import org.jfree.data.xy.DefaultTableXYDataset;
 import org.jfree.data.xy.IntervalXYDataset;
 import org.jfree.data.xy.TableXYDataset;
 import org.jfree.data.xy.XYDataset;
-import org.jfree.data.xy.XYSeries;
-import org.ojalgo.function.constant.PrimitiveMath;
 import org.ojalgo.random.ContinuousDistribution;
-import org.ojalgo.random.Distribution;
 import org.ojalgo.scalar.Scalar;
 import org.ojalgo.series.CalendarDateSeries;
 import org.ojalgo.series.CoordinationSet;
 import org.ojalgo.type.CalendarDate;
+import org.ojalgo.type.CalendarDateDuration;
+import org.ojalgo.type.CalendarDateUnit;
 import org.ojalgo.type.ColourData;
 
 /**
  * TimeSeriesData
+ * <p>
+ * Live series ({@link #addLive(String, int, CalendarDateDuration, boolean, ColourData)}) can be appended to
+ * after the chart is built. Call {@link #flush()} after each batch of appended points to have the chart
+ * updated - the cost is proportional to the number of new points, not the length of the history.
+ * <p>
+ * Appending, flushing and drawing the chart are not synchronised - they must all happen on the same thread
+ * (with Swing, the event dispatch thread) or be guarded by the same lock. An append that overlaps a draw may
+ * otherwise be seen half done.
  *
  * @author apete
  */
 public abstract class CalendarDateSeriesCollection extends AbstractSeriesData<CalendarDate, Number, CalendarDateSeriesCollection> {
 
-    protected final TimeSeriesCollection myCollection = new TimeSeriesCollection() {
-
-        @Override
-        public Number getEndY(final int someSeries, final int someItem) {
-
-            final Number tmpVal = super.getY(someSeries, someItem);
-
-            if (tmpVal instanceof NumberWithRange) {
-                return ((NumberWithRange) tmpVal).high;
-            } else
-
-            if (tmpVal instanceof ContinuousDistributionWrapper) {
-                return ((ContinuousDistributionWrapper) tmpVal).getUpperConfidenceQuantile(CalendarDateSeriesCollection.this.getConfidence());
-            } else if (tmpVal instanceof ContinuousDistribution) {
-                final double tmpProbability = PrimitiveMath.ONE - ((PrimitiveMath.ONE - CalendarDateSeriesCollection.this.getConfidence()) / PrimitiveMath.TWO);
-                return ((ContinuousDistribution) tmpVal).getQuantile(tmpProbability);
-            } else {
-                return tmpVal;
+    /**
+     * @param grid Timestamps that the series (probably) shares with other series, or null. The grid is used,
+     *        rather than a copy, if the series' keys match it exactly.
+     * @param regular The resolution at which the grid is regular, or null if it is not regular
+     */
+    static PrimitiveTimeSeriesDataset.Series convert(final CalendarDateSeries<?> series, final long[] grid, final CalendarDateUnit regular,
+            final double confidence) {
+
+        final String tmpName = series.getName();
+
+        final int tmpSize = series.size();
+        long[] tmpMillis = (grid != null) && (grid.length == tmpSize) ? grid : new long[tmpSize];
+        final double[] tmpValues = new double[tmpSize];
+        Object[] tmpRanged = null;
+
+        int i = 0;
+        for (final Entry<CalendarDate, ?> tmpEntry : series.entrySet()) {
+            final long tmpKey = tmpEntry.getKey().millis;
+            if (tmpMillis != grid) {
+                tmpMillis[i] = tmpKey;
+            } else if (tmpKey != grid[i]) {
+                tmpMillis = Arrays.copyOf(grid, tmpSize);
+                tmpMillis[i] = tmpKey;
             }
-        }
-
-        @Override
-        public Number getStartY(final int someSeries, final int someItem) {
-
-            final Number tmpVal = super.getY(someSeries, someItem);
-            if (tmpVal instanceof NumberWithRange) {
-                return ((NumberWithRange) tmpVal).low;
-            } else
-
-            if (tmpVal instanceof ContinuousDistributionWrapper) {
-                return ((ContinuousDistributionWrapper) tmpVal).getLowerConfidenceQuantile(CalendarDateSeriesCollection.this.getConfidence());
-            } else if (tmpVal instanceof ContinuousDistribution) {
-                final double tmpProbability = (PrimitiveMath.ONE - CalendarDateSeriesCollection.this.getConfidence()) / PrimitiveMath.TWO;
-                return ((ContinuousDistribution) tmpVal).getQuantile(tmpProbability);
+            final Object tmpValue = tmpEntry.getValue();
+            if (PrimitiveTimeSeriesDataset.isRanged(tmpValue)) {
+                if (tmpRanged == null) {
+                    tmpRanged = new Object[tmpSize];
+                }
+                final Object tmpNumber = tmpValue instanceof Number ? tmpValue : new ContinuousDistributionWrapper((ContinuousDistribution) tmpValue);
+                tmpRanged[i] = tmpNumber;
+                tmpValues[i] = PrimitiveTimeSeriesDataset.value(tmpNumber);
+            } else if (tmpValue instanceof Number) {
+                tmpValues[i] = PrimitiveTimeSeriesDataset.value(tmpValue);
             } else {
-                return tmpVal;
+                tmpValues[i] = Scalar.doubleValue((Comparable<?>) tmpValue);
             }
+            i++;
         }
 
-        @Override
-        public Number getY(final int someSeries, final int someItem) {
-
-            final Number tmpVal = super.getY(someSeries, someItem);
-            if (tmpVal instanceof NumberWithRange) {
-                return ((NumberWithRange) tmpVal).value;
-            } else
+        final PrimitiveTimeSeriesDataset.Ranges tmpRanges = tmpRanged != null ? PrimitiveTimeSeriesDataset.Ranges.of(tmpRanged, tmpValues, confidence) : null;
 
-            if (tmpVal instanceof ContinuousDistributionWrapper) {
-                //return ((LogNormal) tmpVal).getGeometricMean();
-                return Double.NaN;
-            } else if (tmpVal instanceof Distribution) {
-                return ((Distribution) tmpVal).getExpected();
-                //return Double.NaN;
-            } else {
-                return tmpVal;
-            }
+        final CalendarDateUnit tmpResolution = series.getResolution();
+        final boolean tmpRegular = tmpMillis == grid ? (regular != null) && (regular == tmpResolution)
+                : PrimitiveTimeSeriesDataset.isRegular(tmpMillis, tmpResolution);
+        if (tmpRegular) {
+            return new PrimitiveTimeSeriesDataset.RegularSeries(tmpName, tmpMillis[0], tmpResolution, tmpValues, tmpRanges, tmpSize);
+        } else {
+            return new PrimitiveTimeSeriesDataset.ExplicitSeries(tmpName, tmpMillis, tmpValues, tmpRanges, tmpSize);
         }
+    }
 
-    };
+    protected final PrimitiveTimeSeriesDataset myCollection = new PrimitiveTimeSeriesDataset();
 
-    private double myConfidence = 0.68;
     private boolean myDeviationRenderer = false;
     private float myAlpha = 0.25F;
 
@@ -121,43 +120,120 @@ public abstract class CalendarDateSeriesCollection extends AbstractSeriesData<Ca
 
     public void add(final CalendarDateSeries<?> aSeries) {
 
-        final String tmpName = aSeries.getName();
-
-        final TimeSeries tmpSeries = new TimeSeries(tmpName);
-        for (final Entry<CalendarDate, ?> tmpEntry : aSeries.entrySet()) {
-            final CalendarDate tmpKey = tmpEntry.getKey();
-            final FixedMillisecond tmpPeriod = new FixedMillisecond(tmpKey.millis);
-            final Comparable<?> tmpValue = (Comparable<?>) tmpEntry.getValue();
-            if (tmpValue instanceof Number) {
-                final TimeSeriesDataItem tmpItem = new TimeSeriesDataItem(tmpPeriod, (Number) tmpValue);
-                tmpSeries.add(tmpItem);
-            } else if (tmpValue instanceof ContinuousDistribution) {
-                final TimeSeriesDataItem tmpItem = new TimeSeriesDataItem(tmpPeriod, new ContinuousDistributionWrapper((ContinuousDistribution) tmpValue));
-                tmpSeries.add(tmpItem);
-            } else {
-                final TimeSeriesDataItem tmpItem = new TimeSeriesDataItem(tmpPeriod, Scalar.doubleValue(tmpValue));
-                tmpSeries.add(tmpItem);
-            }
+        final ChartInstrumentation.Probe tmpProbe = this.probe();
+
+        myCollection.addSeries(CalendarDateSeriesCollection.convert(aSeries, null, null, this.getConfidence()));
+
+        this.putColour(aSeries);
+
+        if (tmpProbe != null) {
+            tmpProbe.stop(ChartInstrumentation.Phase.INGEST, aSeries.size(), 1);
         }
-        myCollection.addSeries(tmpSeries);
+    }
+
+    /**
+     * A series sampled at a fixed resolution. Only the start, the step and the values are stored - the array
+     * is not copied.
+     */
+    public void add(final String name, final CalendarDate start, final CalendarDateUnit step, final double[] values, final ColourData colour) {
 
-        ColourData tmpColour2 = aSeries.getColour();
-        if (tmpColour2 == null) {
-            tmpColour2 = ColourData.random();
-            aSeries.colour(tmpColour2);
+        myCollection.addSeries(name, start, step, values);
+
+        if (colour != null) {
+            this.putColour(name, new Color(colour.getRGB()));
         }
-        final int tmpRgb = tmpColour2.getRGB();
-        final Color tmpColour = new Color(tmpRgb);
+    }
+
+    /**
+     * A series read, zero-copy, from memory mapped columns of a {@link MappedSeriesFile} - for series larger
+     * than the heap.
+     *
+     * @param millis The name of the epoch millis column - must be in ascending order
+     * @param values The name of the y-values column
+     */
+    public void add(final String name, final MappedSeriesFile file, final String millis, final String values, final ColourData colour) {
+
+        myCollection.addSeries(name, file, millis, values);
 
-        this.putColour(tmpName, tmpColour);
+        if (colour != null) {
+            this.putColour(name, new Color(colour.getRGB()));
+        }
     }
 
+    /**
+     * The series are converted in parallel (on the common fork-join pool) and then added, in order, with a
+     * single change event. Series that share the same time grid (as the series of a coordination set
+     * typically do) share a single timestamp column.
+     */
     public void add(final CoordinationSet<?> aSet) {
-        for (final CalendarDateSeries<?> tmpSeries : aSet.values()) {
-            this.add(tmpSeries);
+
+        final List<CalendarDateSeries<?>> tmpSeries = new ArrayList<>(aSet.values());
+        if (tmpSeries.isEmpty()) {
+            return;
+        }
+
+        final ChartInstrumentation.Probe tmpProbe = this.probe();
+
+        final CalendarDateSeries<?> tmpFirst = tmpSeries.get(0);
+        final long[] tmpGrid = new long[tmpFirst.size()];
+        int i = 0;
+        for (final CalendarDate tmpKey : tmpFirst.keySet()) {
+            tmpGrid[i++] = tmpKey.millis;
+        }
+        final CalendarDateUnit tmpRegular = PrimitiveTimeSeriesDataset.isRegular(tmpGrid, tmpFirst.getResolution()) ? tmpFirst.getResolution() : null;
+
+        final double tmpConfidence = this.getConfidence();
+        final List<PrimitiveTimeSeriesDataset.Series> tmpConverted = tmpSeries.parallelStream()
+                .map(series -> CalendarDateSeriesCollection.convert(series, tmpGrid, tmpRegular, tmpConfidence)).collect(Collectors.toList());
+
+        myCollection.addSeries(tmpConverted);
+
+        long tmpPoints = 0L;
+        for (final CalendarDateSeries<?> tmpOne : tmpSeries) {
+            this.putColour(tmpOne);
+            tmpPoints += tmpOne.size();
+        }
+
+        if (tmpProbe != null) {
+            // Only the calling thread's CPU time and allocations are measured, not those of the pool
+            tmpProbe.stop(ChartInstrumentation.Phase.INGEST, tmpPoints, tmpSeries.size());
         }
     }
 
+    /**
+     * An empty series to {@link #append(String, CalendarDate, double)} points to.
+     *
+     * @param capacity The max number of points retained - when full the oldest are evicted
+     * @param window Points older than this, relative to the newest point, are evicted. null means no time
+     *        window.
+     * @param ranged Whether the points will have low/high values or not
+     */
+    public void addLive(final String name, final int capacity, final CalendarDateDuration window, final boolean ranged, final ColourData colour) {
+
+        final long tmpWindow = window != null ? window.convertTo(CalendarDateUnit.MILLIS).longValue() : 0L;
+        myCollection.addLiveSeries(name, capacity, tmpWindow, ranged);
+
+        if (colour != null) {
+            this.putColour(name, new Color(colour.getRGB()));
+        }
+    }
+
+    /**
+     * Append a point to a live series. Points must be appended in ascending time order. The chart is not
+     * updated until {@link #flush()} is called. Must not be called while the chart is being drawn - see the
+     * class documentation.
+     */
+    public void append(final String name, final CalendarDate key, final double value) {
+        myCollection.append(this.indexOfLive(name), key.millis, value);
+    }
+
+    /**
+     * Same as {@link #append(String, CalendarDate, double)} but with low/high values (for ranged live series).
+     */
+    public void append(final String name, final CalendarDate key, final double low, final double value, final double high) {
+        myCollection.append(this.indexOfLive(name), key.millis, low, value, high);
+    }
+
     public CalendarDateSeriesCollection deviationRenderer(final boolean flag) {
         myDeviationRenderer = flag;
         return this;
@@ -168,8 +244,22 @@ public abstract class CalendarDateSeriesCollection extends AbstractSeriesData<Ca
         return this;
     }
 
+    /**
+     * Notify the chart (with a single change event) of all points appended since the previous flush.
+     */
+    public void flush() {
+        myCollection.flush();
+    }
+
+    @Override
+    protected void fingerprint(final Fingerprint fingerprint) {
+        super.fingerprint(fingerprint);
+        fingerprint.add(myDeviationRenderer).add(myAlpha);
+        myCollection.fingerprint(fingerprint);
+    }
+
     protected double getConfidence() {
-        return myConfidence;
+        return myCollection.getConfidence();
     }
 
     protected float getDeviationRendererAlpha() {
@@ -178,24 +268,17 @@ public abstract class CalendarDateSeriesCollection extends AbstractSeriesData<Ca
 
     @Override
     protected IntervalXYDataset getIntervalXYData() {
-        return myCollection;
+        return this.downsampled(myCollection);
     }
 
     @Override
     protected TableXYDataset getTableXYData() {
-
-        final DefaultTableXYDataset retVal = new DefaultTableXYDataset();
-
-        for (final Object tmpSeries : myCollection.getSeries()) {
-            retVal.addSeries((XYSeries) tmpSeries);
-        }
-
-        return retVal;
+        return new AlignedTableXYDataset(myCollection);
     }
 
     @Override
     protected XYDataset getXYData() {
-        return myCollection;
+        return this.downsampled(myCollection);
     }
 
     protected boolean isDeviationRenderer() {
@@ -203,7 +286,26 @@ public abstract class CalendarDateSeriesCollection extends AbstractSeriesData<Ca
     }
 
     protected void setConfidence(final double newConfidence) {
-        myConfidence = newConfidence;
+        myCollection.setConfidence(newConfidence);
+    }
+
+    private int indexOfLive(final String name) {
+        final int retVal = myCollection.indexOf(name);
+        if (retVal < 0) {
+            throw new IllegalArgumentException("No such series: " + name);
+        }
+        return retVal;
+    }
+
+    private void putColour(final CalendarDateSeries<?> series) {
+
+        ColourData tmpColour = series.getColour();
+        if (tmpColour == null) {
+            tmpColour = ColourData.random();
+            series.colour(tmpColour);
+        }
+
+        this.putColour(series.getName(), new Color(tmpColour.getRGB()));
     }
 
 }
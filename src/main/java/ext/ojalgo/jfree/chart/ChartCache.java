@@ -0,0 +1,246 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ojalgo.ProgrammingError;
+
+/**
+ * A thread safe cache of rendered (encoded) charts, keyed by the builder's {@link Fingerprint} and the
+ * image width/height. Least recently used images are evicted when the total size exceeds the byte budget.
+ * Concurrent requests for the same chart are deduplicated - only one of them renders, the others wait for
+ * and share the result.
+ * <p>
+ * The returned byte[] are shared between callers and must not be modified.
+ */
+public final class ChartCache {
+
+    static final class Key {
+
+        final Fingerprint fingerprint;
+        final int height;
+        final int width;
+
+        Key(final Fingerprint fingerprint, final int width, final int height) {
+
+            super();
+
+            this.fingerprint = fingerprint;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return (width == other.width) && (height == other.height) && fingerprint.equals(other.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * ((31 * fingerprint.hashCode()) + width)) + height;
+        }
+
+    }
+
+    private final long myBudget;
+    private final LinkedHashMap<Key, byte[]> myEntries = new LinkedHashMap<>(16, 0.75F, true);
+    private final AtomicLong myEvictions = new AtomicLong();
+    private final AtomicLong myHits = new AtomicLong();
+    private final ConcurrentHashMap<Key, CompletableFuture<byte[]>> myInFlight = new ConcurrentHashMap<>();
+    private final AtomicLong myMisses = new AtomicLong();
+    private long mySize = 0L;
+
+    /**
+     * @param budget The max total number of (encoded image) bytes retained
+     */
+    public ChartCache(final long budget) {
+
+        super();
+
+        if (budget < 0L) {
+            throw new ProgrammingError("The budget must not be negative!");
+        }
+
+        myBudget = budget;
+    }
+
+    public void clear() {
+        synchronized (myEntries) {
+            myEntries.clear();
+            mySize = 0L;
+        }
+    }
+
+    /**
+     * Returns the cached image, or builds and renders the chart (and caches the image). Charts that are not
+     * {@link Fingerprint#isCacheable()} are always rendered, and never cached.
+     */
+    public byte[] get(final JFreeChartBuilder<?> builder, final int width, final int height) {
+
+        final Fingerprint tmpFingerprint = builder.fingerprint();
+
+        if (!tmpFingerprint.isCacheable()) {
+            myMisses.incrementAndGet();
+            return ChartCache.render(builder, width, height);
+        }
+
+        final Key tmpKey = new Key(tmpFingerprint, width, height);
+
+        byte[] retVal = this.lookup(tmpKey);
+        if (retVal != null) {
+            myHits.incrementAndGet();
+            return retVal;
+        }
+
+        final CompletableFuture<byte[]> tmpPending = new CompletableFuture<>();
+        final CompletableFuture<byte[]> tmpExisting = myInFlight.putIfAbsent(tmpKey, tmpPending);
+
+        if (tmpExisting != null) {
+            // Someone else is already rendering this chart
+            myHits.incrementAndGet();
+            try {
+                return tmpExisting.join();
+            } catch (final CompletionException cause) {
+                if (cause.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) cause.getCause();
+                }
+                throw cause;
+            }
+        }
+
+        try {
+
+            // May have been cached after the lookup above but before becoming in-flight
+            retVal = this.lookup(tmpKey);
+            if (retVal != null) {
+                myHits.incrementAndGet();
+            } else {
+                myMisses.incrementAndGet();
+                retVal = ChartCache.render(builder, width, height);
+                this.store(tmpKey, retVal);
+            }
+
+            tmpPending.complete(retVal);
+            return retVal;
+
+        } catch (final RuntimeException cause) {
+            tmpPending.completeExceptionally(cause);
+            throw cause;
+        } finally {
+            myInFlight.remove(tmpKey, tmpPending);
+        }
+    }
+
+    public long getBudget() {
+        return myBudget;
+    }
+
+    public int getCount() {
+        synchronized (myEntries) {
+            return myEntries.size();
+        }
+    }
+
+    public long getEvictionCount() {
+        return myEvictions.get();
+    }
+
+    public long getHitCount() {
+        return myHits.get();
+    }
+
+    public long getMissCount() {
+        return myMisses.get();
+    }
+
+    /**
+     * @return The total number of bytes currently cached
+     */
+    public long getSize() {
+        synchronized (myEntries) {
+            return mySize;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ChartCache [count=" + this.getCount() + ", size=" + this.getSize() + ", budget=" + myBudget + ", hits=" + myHits + ", misses=" + myMisses
+                + ", evictions=" + myEvictions + "]";
+    }
+
+    private static byte[] render(final JFreeChartBuilder<?> builder, final int width, final int height) {
+
+        final JFreeChartAdaptor tmpChart = builder.build();
+
+        tmpChart.setWidth(width);
+        tmpChart.setHeight(height);
+
+        return tmpChart.toByteArray();
+    }
+
+    private byte[] lookup(final Key key) {
+        synchronized (myEntries) {
+            return myEntries.get(key);
+        }
+    }
+
+    private void store(final Key key, final byte[] image) {
+
+        if (image.length > myBudget) {
+            return;
+        }
+
+        synchronized (myEntries) {
+
+            final byte[] tmpPrevious = myEntries.put(key, image);
+            if (tmpPrevious != null) {
+                mySize -= tmpPrevious.length;
+            }
+            mySize += image.length;
+
+            final Iterator<Map.Entry<Key, byte[]>> tmpIterator = myEntries.entrySet().iterator();
+            while ((mySize > myBudget) && tmpIterator.hasNext()) {
+                final Map.Entry<Key, byte[]> tmpEldest = tmpIterator.next();
+                if (tmpEldest.getKey() != key) {
+                    mySize -= tmpEldest.getValue().length;
+                    tmpIterator.remove();
+                    myEvictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PiePlot;
+import org.jfree.chart.plot.Plot;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.PieDataset;
+import org.jfree.data.xy.XYDataset;
+
+/**
+ * Per phase timing and allocation measurements of building and rendering charts. Register a
+ * {@link Listener} with {@link JFreeChartBuilder#listener(Listener)} - when there is none nothing is
+ * measured.
+ * <p>
+ * CPU time and allocated bytes are those of the current thread, and are -1 when the JVM does not support
+ * measuring them.
+ */
+public final class ChartInstrumentation {
+
+    static final class FlightRecorderHolder {
+
+        static final Listener LISTENER = ChartInstrumentation.loadFlightRecorder();
+
+    }
+
+    public interface Listener {
+
+        /**
+         * Called, on the thread that did the work, when a phase completes.
+         */
+        void onPhase(Measurement measurement);
+
+    }
+
+    public static final class Measurement {
+
+        /**
+         * Bytes allocated by the thread during the phase, or -1
+         */
+        public final long allocatedBytes;
+        /**
+         * Thread CPU time (nanos) spent in the phase, or -1
+         */
+        public final long cpuNanos;
+        public final Phase phase;
+        /**
+         * The number of data items involved - added, plotted or drawn (pixels when encoding)
+         */
+        public final long points;
+        public final int series;
+        public final long wallNanos;
+
+        Measurement(final Phase phase, final long wallNanos, final long cpuNanos, final long allocatedBytes, final long points, final int series) {
+
+            super();
+
+            this.phase = phase;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.points = points;
+            this.series = series;
+        }
+
+        @Override
+        public String toString() {
+            return phase + " wall=" + wallNanos + "ns cpu=" + cpuNanos + "ns allocated=" + allocatedBytes + "B points=" + points + " series=" + series;
+        }
+
+    }
+
+    public enum Phase {
+
+        /**
+         * Drawing the chart on an image - {@link org.jfree.chart.JFreeChart#draw}
+         */
+        DRAW,
+        /**
+         * Encoding the image (PNG)
+         */
+        ENCODE,
+        /**
+         * Adding data to the builder - converting it to the datasets' representation
+         */
+        INGEST,
+        /**
+         * Creating the plot (and the chart) from the builder's data and settings
+         */
+        PLOT;
+
+    }
+
+    /**
+     * A started measurement
+     */
+    static final class Probe {
+
+        private final long myAllocated;
+        private final long myCpu;
+        private final Listener myListener;
+        private final long myWall;
+
+        Probe(final Listener listener) {
+
+            super();
+
+            myListener = listener;
+            myAllocated = ChartInstrumentation.allocated();
+            myCpu = ChartInstrumentation.cpu();
+            myWall = System.nanoTime();
+        }
+
+        void stop(final Phase phase, final long points, final int series) {
+
+            final long tmpWall = System.nanoTime() - myWall;
+            final long tmpCpu = myCpu >= 0L ? ChartInstrumentation.cpu() - myCpu : -1L;
+            final long tmpAllocated = myAllocated >= 0L ? ChartInstrumentation.allocated() - myAllocated : -1L;
+
+            myListener.onPhase(new Measurement(phase, tmpWall, tmpCpu, tmpAllocated, points, series));
+        }
+
+        void stop(final Phase phase, final Plot plot) {
+
+            long tmpPoints = 0L;
+            int tmpSeries = 0;
+
+            if (plot instanceof XYPlot) {
+                final XYPlot tmpPlot = (XYPlot) plot;
+                for (int d = 0; d < tmpPlot.getDatasetCount(); d++) {
+                    final XYDataset tmpDataset = tmpPlot.getDataset(d);
+                    if (tmpDataset != null) {
+                        tmpSeries += tmpDataset.getSeriesCount();
+                        for (int s = 0; s < tmpDataset.getSeriesCount(); s++) {
+                            tmpPoints += tmpDataset.getItemCount(s);
+                        }
+                    }
+                }
+            } else if (plot instanceof CategoryPlot) {
+                final CategoryPlot tmpPlot = (CategoryPlot) plot;
+                for (int d = 0; d < tmpPlot.getDatasetCount(); d++) {
+                    final CategoryDataset tmpDataset = tmpPlot.getDataset(d);
+                    if (tmpDataset != null) {
+                        tmpSeries += tmpDataset.getRowCount();
+                        tmpPoints += (long) tmpDataset.getRowCount() * tmpDataset.getColumnCount();
+                    }
+                }
+            } else if (plot instanceof PiePlot) {
+                final PieDataset<?> tmpDataset = ((PiePlot<?>) plot).getDataset();
+                if (tmpDataset != null) {
+                    tmpSeries = 1;
+                    tmpPoints = tmpDataset.getItemCount();
+                }
+            }
+
+            this.stop(phase, tmpPoints, tmpSeries);
+        }
+
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * A listener that emits a JDK Flight Recorder event, "ojAlgo JFreeChart Phase", per measurement.
+     *
+     * @return null if JDK Flight Recorder is not available in this JVM (it needs Java 11 or later)
+     */
+    public static Listener flightRecorder() {
+        return FlightRecorderHolder.LISTENER;
+    }
+
+    /**
+     * @return null if the listener is null (no measurement), otherwise a started measurement
+     */
+    static Probe start(final Listener listener) {
+        return listener != null ? new Probe(listener) : null;
+    }
+
+    private static long allocated() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean tmpThreads = (com.sun.management.ThreadMXBean) THREADS;
+            if (tmpThreads.isThreadAllocatedMemorySupported() && tmpThreads.isThreadAllocatedMemoryEnabled()) {
+                return tmpThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1L;
+    }
+
+    private static long cpu() {
+        if (THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled()) {
+            return THREADS.getCurrentThreadCpuTime();
+        }
+        return -1L;
+    }
+
+    private static Listener loadFlightRecorder() {
+        try {
+            // Loaded reflectively so that this class does not depend on jdk.jfr
+            return (Listener) Class.forName("ext.ojalgo.jfree.chart.FlightRecorderListener").getDeclaredConstructor().newInstance();
+        } catch (final ReflectiveOperationException | LinkageError cause) {
+            return null;
+        }
+    }
+
+    private ChartInstrumentation() {
+        super();
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.awt.Paint;
+import java.awt.Shape;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.LegendItemSource;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PiePlot;
+import org.jfree.chart.plot.Plot;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.AbstractRenderer;
+import org.jfree.chart.renderer.xy.StackedXYAreaRenderer;
+import org.jfree.chart.renderer.xy.StackedXYAreaRenderer2;
+import org.jfree.chart.title.LegendTitle;
+import org.jfree.chart.title.Title;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.Dataset;
+import org.jfree.data.general.PieDataset;
+import org.jfree.data.xy.TableXYDataset;
+import org.jfree.data.xy.XYDataset;
+import org.ojalgo.ProgrammingError;
+
+/**
+ * A chart layout compiled once, from a configured {@link JFreeChartBuilder}, that can then stamp out charts
+ * with different data. The axes, renderers, generators and formats are created once (in a prototype chart)
+ * and then cloned for each new chart, and the series colours/shapes are looked up in maps resolved at
+ * compile time.
+ * <p>
+ * Instances are immutable and may be shared between threads. The prototype is never modified (or drawn)
+ * after it has been compiled.
+ */
+public final class ChartTemplate {
+
+    private final Map<Comparable<?>, Paint> myColours;
+    private final PngEncoder myEncoder;
+    private final JFreeChart myPrototype;
+    private final Map<Comparable<?>, Shape> myShapes;
+
+    /**
+     * Builds the prototype chart, using whatever data the builder currently has, and then detaches the data
+     * from it.
+     */
+    public ChartTemplate(final JFreeChartBuilder<?> builder) {
+
+        super();
+
+        ProgrammingError.throwIfNull(builder);
+
+        myPrototype = builder.build().getDelegate();
+        myEncoder = builder.png.getEncoder();
+
+        final Plot tmpPlot = myPrototype.getPlot();
+        if (tmpPlot instanceof XYPlot) {
+            final XYPlot tmpXYPlot = (XYPlot) tmpPlot;
+            for (int d = 0; d < tmpXYPlot.getDatasetCount(); d++) {
+                tmpXYPlot.setDataset(d, null);
+            }
+        } else if (tmpPlot instanceof CategoryPlot) {
+            final CategoryPlot tmpCategoryPlot = (CategoryPlot) tmpPlot;
+            for (int d = 0; d < tmpCategoryPlot.getDatasetCount(); d++) {
+                tmpCategoryPlot.setDataset(d, null);
+            }
+        } else if (tmpPlot instanceof PiePlot) {
+            ((PiePlot<?>) tmpPlot).setDataset(null);
+        }
+
+        final HashMap<Comparable<?>, Paint> tmpColours = new HashMap<>();
+        for (final Entry<Comparable<?>, Paint> tmpEntry : builder.getColourSet()) {
+            tmpColours.put(tmpEntry.getKey(), tmpEntry.getValue());
+        }
+        myColours = Collections.unmodifiableMap(tmpColours);
+
+        final HashMap<Comparable<?>, Shape> tmpShapes = new HashMap<>();
+        if (builder instanceof AbstractSeriesData) {
+            for (final Entry<Comparable<?>, Shape> tmpEntry : ((AbstractSeriesData<?, ?, ?>) builder).getShapeSet()) {
+                if (tmpEntry.getValue() != null) {
+                    tmpShapes.put(tmpEntry.getKey(), tmpEntry.getValue());
+                }
+            }
+        }
+        myShapes = Collections.unmodifiableMap(tmpShapes);
+    }
+
+    /**
+     * @param dataset Must match the plot type of the template: {@link XYDataset} for the XY charts,
+     *        {@link CategoryDataset} for the bar charts and {@link PieDataset} for the pie chart. Series
+     *        without a colour in the template get an automatically assigned one. For stacked XY area charts
+     *        an {@link XYDataset} that is not a {@link TableXYDataset} is aligned (copied) in to one. The
+     *        builder's {@link AbstractSeriesData#downsample(AbstractSeriesData.Downsampling)} setting is not
+     *        applied - the dataset is drawn as is.
+     */
+    public JFreeChartAdaptor make(final Dataset dataset) {
+        return this.make(dataset, null);
+    }
+
+    /**
+     * @param title Replaces the template's title, null means keep it.
+     */
+    public JFreeChartAdaptor make(final Dataset dataset, final String title) {
+
+        ProgrammingError.throwIfNull(dataset);
+
+        final JFreeChart retVal;
+        try {
+            retVal = (JFreeChart) myPrototype.clone();
+        } catch (final CloneNotSupportedException cause) {
+            throw new IllegalStateException(cause);
+        }
+
+        final Plot tmpPlot = retVal.getPlot();
+
+        if ((tmpPlot instanceof XYPlot) && (dataset instanceof XYDataset)) {
+
+            final XYPlot tmpXYPlot = (XYPlot) tmpPlot;
+            final AbstractRenderer tmpRenderer = (AbstractRenderer) tmpXYPlot.getRenderer();
+            final XYDataset tmpDataset;
+            if (((tmpRenderer instanceof StackedXYAreaRenderer) || (tmpRenderer instanceof StackedXYAreaRenderer2))
+                    && !(dataset instanceof TableXYDataset)) {
+                // Stacked renderers require a table
+                tmpDataset = new AlignedTableXYDataset((XYDataset) dataset);
+            } else {
+                tmpDataset = (XYDataset) dataset;
+            }
+            for (int s = 0; s < tmpDataset.getSeriesCount(); s++) {
+                this.style(tmpRenderer, s, tmpDataset.getSeriesKey(s));
+            }
+            tmpXYPlot.setDataset(tmpDataset);
+
+        } else if ((tmpPlot instanceof CategoryPlot) && (dataset instanceof CategoryDataset)) {
+
+            final CategoryPlot tmpCategoryPlot = (CategoryPlot) tmpPlot;
+            final CategoryDataset tmpDataset = (CategoryDataset) dataset;
+            final AbstractRenderer tmpRenderer = (AbstractRenderer) tmpCategoryPlot.getRenderer();
+            for (int r = 0; r < tmpDataset.getRowCount(); r++) {
+                this.style(tmpRenderer, r, tmpDataset.getRowKey(r));
+            }
+            tmpCategoryPlot.setDataset(tmpDataset);
+
+        } else if ((tmpPlot instanceof PiePlot) && (dataset instanceof PieDataset)) {
+
+            ChartTemplate.setDataset((PiePlot<?>) tmpPlot, (PieDataset<?>) dataset);
+
+        } else {
+
+            throw new IllegalArgumentException("The dataset does not fit the template's plot: " + tmpPlot.getPlotType());
+        }
+
+        // The cloned legend still refers to the prototype's plot
+        for (int t = 0; t < retVal.getSubtitleCount(); t++) {
+            final Title tmpSubtitle = retVal.getSubtitle(t);
+            if (tmpSubtitle instanceof LegendTitle) {
+                ((LegendTitle) tmpSubtitle).setSources(new LegendItemSource[] { (LegendItemSource) tmpPlot });
+            }
+        }
+
+        if (title != null) {
+            retVal.setTitle(title);
+        }
+
+        final JFreeChartAdaptor tmpAdaptor = new JFreeChartAdaptor(retVal);
+        tmpAdaptor.setEncoder(myEncoder);
+        return tmpAdaptor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<K>> void setDataset(final PiePlot<?> plot, final PieDataset<?> dataset) {
+        ((PiePlot<K>) plot).setDataset((PieDataset<K>) dataset);
+    }
+
+    private void style(final AbstractRenderer renderer, final int series, final Comparable<?> key) {
+
+        final Paint tmpPaint = myColours.get(key);
+        renderer.setSeriesPaint(series, tmpPaint, false);
+        renderer.setSeriesFillPaint(series, tmpPaint, false);
+
+        renderer.setSeriesShape(series, myShapes.get(key), false);
+    }
+
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.plot.CrosshairState;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.PlotRenderingInfo;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYItemRenderer;
+import org.jfree.chart.ui.RectangleEdge;
+import org.jfree.data.xy.XYDataset;
+
+/**
+ * An {@link XYPlot} that, instead of drawing a shape per item, bins all items in to a pixel resolution
+ * grid (in one parallel pass) and draws that grid as a single image. The cost of drawing depends on the
+ * number of pixels rather than the number of items. The axes (including log axes) and the orientation are
+ * handled exactly as for a normal plot, and the renderer is still used for the legend and the axes ranges.
+ * <p>
+ * The density is log-scaled. With a single (visible) series it is colour-mapped, with several series each
+ * pixel gets the (count weighted) mix of the series colours, and the density sets the opacity. Series the
+ * renderer reports as not visible are not binned.
+ */
+final class DensityXYPlot extends XYPlot {
+
+    /**
+     * Counts per pixel, and (with several series) the count weighted sums of the series colour components
+     */
+    static final class Grid {
+
+        final long[] blue;
+        final int[] counts;
+        final long[] green;
+        final long[] red;
+
+        Grid(final int size, final boolean coloured) {
+
+            super();
+
+            counts = new int[size];
+            red = coloured ? new long[size] : null;
+            green = coloured ? new long[size] : null;
+            blue = coloured ? new long[size] : null;
+        }
+
+    }
+
+    /**
+     * The part of the grid binned by one worker. The colour sums are int - the partial is flushed to the
+     * (shared) grid before they could overflow.
+     */
+    static final class Partial {
+
+        final int[] blue;
+        final int[] counts;
+        final int[] green;
+        final int[] red;
+        /**
+         * The number of items binned since the last flush
+         */
+        int size = 0;
+
+        Partial(final int size, final boolean coloured) {
+
+            super();
+
+            counts = new int[size];
+            red = coloured ? new int[size] : null;
+            green = coloured ? new int[size] : null;
+            blue = coloured ? new int[size] : null;
+        }
+
+        void flush(final Grid grid) {
+            synchronized (grid) {
+                for (int i = 0; i < counts.length; i++) {
+                    grid.counts[i] += counts[i];
+                }
+                if (red != null) {
+                    for (int i = 0; i < counts.length; i++) {
+                        grid.red[i] += red[i];
+                        grid.green[i] += green[i];
+                        grid.blue[i] += blue[i];
+                    }
+                }
+            }
+            Arrays.fill(counts, 0);
+            if (red != null) {
+                Arrays.fill(red, 0);
+                Arrays.fill(green, 0);
+                Arrays.fill(blue, 0);
+            }
+            size = 0;
+        }
+
+    }
+
+    /**
+     * The items of one series in the range [first, limit)
+     */
+    private static final class Block {
+
+        final int first;
+        final int limit;
+        final int series;
+
+        Block(final int series, final int first, final int limit) {
+
+            super();
+
+            this.series = series;
+            this.first = first;
+            this.limit = limit;
+        }
+
+    }
+
+    private static final int BLOCK_SIZE = 1 << 16;
+    /**
+     * 255 x this fits in an int
+     */
+    private static final int MAX_PARTIAL_SIZE = Integer.MAX_VALUE / 255;
+    private static final int[] COLOUR_MAP = { 0x440154, 0x3B528B, 0x21908C, 0x5DC863, 0xFDE725 };
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param value [0, 1]
+     */
+    static int map(final double value) {
+
+        final double tmpPosition = Math.max(0.0, Math.min(1.0, value)) * (COLOUR_MAP.length - 1);
+        final int tmpIndex = Math.min((int) tmpPosition, COLOUR_MAP.length - 2);
+        final double tmpFraction = tmpPosition - tmpIndex;
+
+        final int tmpFrom = COLOUR_MAP[tmpIndex];
+        final int tmpTo = COLOUR_MAP[tmpIndex + 1];
+
+        int retVal = 0;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            final int tmpA = (tmpFrom >> shift) & 0xFF;
+            final int tmpB = (tmpTo >> shift) & 0xFF;
+            retVal |= ((int) Math.round(tmpA + ((tmpB - tmpA) * tmpFraction))) << shift;
+        }
+        return retVal;
+    }
+
+    DensityXYPlot(final XYDataset dataset, final ValueAxis domainAxis, final ValueAxis rangeAxis, final XYItemRenderer renderer) {
+        super(dataset, domainAxis, rangeAxis, renderer);
+    }
+
+    @Override
+    public boolean render(final Graphics2D g2, final Rectangle2D dataArea, final int index, final PlotRenderingInfo info,
+            final CrosshairState crosshairState) {
+
+        final XYDataset tmpDataset = this.getDataset(index);
+        if ((tmpDataset == null) || (tmpDataset.getSeriesCount() == 0)) {
+            return false;
+        }
+
+        final int tmpWidth = (int) Math.ceil(dataArea.getWidth());
+        final int tmpHeight = (int) Math.ceil(dataArea.getHeight());
+        if ((tmpWidth <= 0) || (tmpHeight <= 0)) {
+            return false;
+        }
+
+        final Grid tmpGrid = this.bin(tmpDataset, index, dataArea, tmpWidth, tmpHeight);
+
+        int tmpMax = 0;
+        for (final int tmpCount : tmpGrid.counts) {
+            tmpMax = Math.max(tmpMax, tmpCount);
+        }
+        if (tmpMax == 0) {
+            return false;
+        }
+
+        final double tmpScale = 1.0 / Math.log1p(tmpMax);
+        final boolean tmpSingle = tmpGrid.red == null;
+
+        final int[] tmpPixels = new int[tmpWidth * tmpHeight];
+        for (int i = 0; i < tmpPixels.length; i++) {
+            final int tmpCount = tmpGrid.counts[i];
+            if (tmpCount > 0) {
+                final double tmpDensity = Math.log1p(tmpCount) * tmpScale;
+                if (tmpSingle) {
+                    tmpPixels[i] = 0xFF000000 | DensityXYPlot.map(tmpDensity);
+                } else {
+                    final int tmpAlpha = 55 + (int) Math.round(200.0 * tmpDensity);
+                    final int tmpRed = (int) (tmpGrid.red[i] / tmpCount);
+                    final int tmpGreen = (int) (tmpGrid.green[i] / tmpCount);
+                    final int tmpBlue = (int) (tmpGrid.blue[i] / tmpCount);
+                    tmpPixels[i] = (tmpAlpha << 24) | (tmpRed << 16) | (tmpGreen << 8) | tmpBlue;
+                }
+            }
+        }
+
+        final BufferedImage tmpImage = new BufferedImage(tmpWidth, tmpHeight, BufferedImage.TYPE_INT_ARGB);
+        tmpImage.setRGB(0, 0, tmpWidth, tmpHeight, tmpPixels, 0, tmpWidth);
+
+        g2.drawImage(tmpImage, (int) Math.floor(dataArea.getMinX()), (int) Math.floor(dataArea.getMinY()), null);
+
+        return true;
+    }
+
+    /**
+     * The blocks are shared, dynamically, between (at most) one worker per thread of the common fork-join
+     * pool. Each worker bins in to its own partial grid, and the partials are summed in to the result.
+     */
+    private Grid bin(final XYDataset dataset, final int index, final Rectangle2D dataArea, final int width, final int height) {
+
+        final ValueAxis tmpDomainAxis = this.getDomainAxisForDataset(index);
+        final ValueAxis tmpRangeAxis = this.getRangeAxisForDataset(index);
+        final RectangleEdge tmpDomainEdge = this.getDomainAxisEdge();
+        final RectangleEdge tmpRangeEdge = this.getRangeAxisEdge();
+        final boolean tmpVertical = this.getOrientation() == PlotOrientation.VERTICAL;
+
+        final double tmpMinX = Math.floor(dataArea.getMinX());
+        final double tmpMinY = Math.floor(dataArea.getMinY());
+
+        final XYItemRenderer tmpRenderer = this.getRendererForDataset(dataset);
+        final int tmpSeriesCount = dataset.getSeriesCount();
+        final int[] tmpColours = new int[tmpSeriesCount];
+        final List<Block> tmpBlocks = new ArrayList<>();
+        int tmpVisible = 0;
+        for (int s = 0; s < tmpSeriesCount; s++) {
+            if ((tmpRenderer != null) && !tmpRenderer.isSeriesVisible(s)) {
+                continue;
+            }
+            tmpVisible++;
+            final Paint tmpPaint = tmpRenderer != null ? tmpRenderer.getItemPaint(s, 0) : null;
+            tmpColours[s] = tmpPaint instanceof Color ? ((Color) tmpPaint).getRGB() : Color.GRAY.getRGB();
+            final int tmpCount = dataset.getItemCount(s);
+            for (int first = 0; first < tmpCount; first += BLOCK_SIZE) {
+                tmpBlocks.add(new Block(s, first, Math.min(first + BLOCK_SIZE, tmpCount)));
+            }
+        }
+
+        final boolean tmpColoured = tmpVisible > 1;
+        final Grid retVal = new Grid(width * height, tmpColoured);
+
+        final AtomicInteger tmpNext = new AtomicInteger();
+        final int tmpWorkers = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), tmpBlocks.size()));
+
+        IntStream.range(0, tmpWorkers).parallel().forEach(worker -> {
+
+            final Partial tmpPartial = new Partial(width * height, tmpColoured);
+
+            for (int b = tmpNext.getAndIncrement(); b < tmpBlocks.size(); b = tmpNext.getAndIncrement()) {
+
+                final Block tmpBlock = tmpBlocks.get(b);
+
+                if ((tmpPartial.size + (tmpBlock.limit - tmpBlock.first)) > MAX_PARTIAL_SIZE) {
+                    tmpPartial.flush(retVal);
+                }
+
+                final int tmpRGB = tmpColours[tmpBlock.series];
+                final int tmpRed = (tmpRGB >> 16) & 0xFF;
+                final int tmpGreen = (tmpRGB >> 8) & 0xFF;
+                final int tmpBlue = tmpRGB & 0xFF;
+
+                for (int i = tmpBlock.first; i < tmpBlock.limit; i++) {
+
+                    final double tmpX = dataset.getXValue(tmpBlock.series, i);
+                    final double tmpY = dataset.getYValue(tmpBlock.series, i);
+                    if (Double.isNaN(tmpX) || Double.isNaN(tmpY)) {
+                        continue;
+                    }
+
+                    final double tmpDomain2D = tmpDomainAxis.valueToJava2D(tmpX, dataArea, tmpDomainEdge);
+                    final double tmpRange2D = tmpRangeAxis.valueToJava2D(tmpY, dataArea, tmpRangeEdge);
+                    if (Double.isNaN(tmpDomain2D) || Double.isNaN(tmpRange2D)) {
+                        continue; // Can happen with log axes
+                    }
+
+                    final int tmpColumn = (int) Math.floor((tmpVertical ? tmpDomain2D : tmpRange2D) - tmpMinX);
+                    final int tmpRow = (int) Math.floor((tmpVertical ? tmpRange2D : tmpDomain2D) - tmpMinY);
+
+                    if ((tmpColumn >= 0) && (tmpColumn < width) && (tmpRow >= 0) && (tmpRow < height)) {
+                        final int tmpPixel = (tmpRow * width) + tmpColumn;
+                        tmpPartial.counts[tmpPixel]++;
+                        if (tmpColoured) {
+                            tmpPartial.red[tmpPixel] += tmpRed;
+                            tmpPartial.green[tmpPixel] += tmpGreen;
+                            tmpPartial.blue[tmpPixel] += tmpBlue;
+                        }
+                    }
+                }
+
+                tmpPartial.size += tmpBlock.limit - tmpBlock.first;
+            }
+
+            tmpPartial.flush(retVal);
+        });
+
+        return retVal;
+    }
+
+}
@@ -0,0 +1,547 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.general.DatasetChangeEvent;
+import org.jfree.data.general.DatasetChangeListener;
+import org.jfree.data.general.DatasetUtils;
+import org.jfree.data.xy.AbstractIntervalXYDataset;
+import org.jfree.data.xy.IntervalXYDataset;
+import org.jfree.data.xy.XYDomainInfo;
+import org.jfree.data.xy.XYRangeInfo;
+
+import ext.ojalgo.jfree.chart.AbstractSeriesData.Downsampling;
+
+/**
+ * A view of an {@link IntervalXYDataset} that, once the resolution (the number of horizontal pixels) is
+ * known, reduces each series to a few points per pixel. Until then, or if the dataset is not in ascending
+ * x-order, it simply delegates to the underlying dataset.
+ * <p>
+ * The start/end y-values of each retained point are the min/max of the start/end y-values of the points it
+ * represents, so that deviation bands keep their envelope. The axes ranges are always derived from the
+ * full (underlying) dataset.
+ * <p>
+ * The view listens to the underlying dataset (to forward its change events) until {@link #detach()} is
+ * called, so create one per builder rather than one per chart.
+ */
+final class DownsampledXYDataset extends AbstractIntervalXYDataset implements DatasetChangeListener, DomainInfo, RangeInfo, XYDomainInfo, XYRangeInfo {
+
+    static final class Reduced {
+
+        int count = 0;
+        double[] high;
+        double[] low;
+        double[] x;
+        double[] y;
+
+        Reduced(final int capacity) {
+            super();
+            x = new double[capacity];
+            y = new double[capacity];
+            low = new double[capacity];
+            high = new double[capacity];
+        }
+
+        void add(final double xValue, final double yValue, final double lowValue, final double highValue) {
+            if (count == x.length) {
+                final int tmpCapacity = Math.max(8, count * 2);
+                x = Arrays.copyOf(x, tmpCapacity);
+                y = Arrays.copyOf(y, tmpCapacity);
+                low = Arrays.copyOf(low, tmpCapacity);
+                high = Arrays.copyOf(high, tmpCapacity);
+            }
+            x[count] = xValue;
+            y[count] = yValue;
+            low[count] = lowValue;
+            high[count] = highValue;
+            count++;
+        }
+
+    }
+
+    private static final Reduced PASS_THROUGH = new Reduced(0);
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * All the items in the range [first, limit), unreduced
+     */
+    static Reduced copy(final IntervalXYDataset dataset, final int series, final int first, final int limit) {
+        final Reduced retVal = new Reduced(limit - first);
+        for (int i = first; i < limit; i++) {
+            retVal.add(dataset.getXValue(series, i), dataset.getYValue(series, i), dataset.getStartYValue(series, i), dataset.getEndYValue(series, i));
+        }
+        return retVal;
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets of the items in the range [first, limit)
+     */
+    static Reduced lttb(final IntervalXYDataset dataset, final int series, final int first, final int limit, final int threshold) {
+
+        final int tmpCount = limit - first;
+        final Reduced retVal = new Reduced(threshold);
+
+        final int tmpLast = limit - 1;
+        retVal.add(dataset.getXValue(series, first), dataset.getYValue(series, first), dataset.getStartYValue(series, first),
+                dataset.getEndYValue(series, first));
+
+        final double tmpEvery = (double) (tmpCount - 2) / (threshold - 2);
+
+        int a = first;
+        for (int i = 0; i < (threshold - 2); i++) {
+
+            final int tmpAvgFirst = first + (int) Math.floor((i + 1) * tmpEvery) + 1;
+            final int tmpAvgLimit = Math.min(first + (int) Math.floor((i + 2) * tmpEvery) + 1, limit);
+
+            double tmpAvgX = 0.0;
+            double tmpAvgY = 0.0;
+            for (int j = tmpAvgFirst; j < tmpAvgLimit; j++) {
+                tmpAvgX += dataset.getXValue(series, j);
+                tmpAvgY += dataset.getYValue(series, j);
+            }
+            final int tmpAvgCount = tmpAvgLimit - tmpAvgFirst;
+            if (tmpAvgCount > 0) {
+                tmpAvgX /= tmpAvgCount;
+                tmpAvgY /= tmpAvgCount;
+            } else {
+                tmpAvgX = dataset.getXValue(series, tmpLast);
+                tmpAvgY = dataset.getYValue(series, tmpLast);
+            }
+
+            final int tmpFirst = first + (int) Math.floor(i * tmpEvery) + 1;
+            final int tmpLimit = Math.min(first + (int) Math.floor((i + 1) * tmpEvery) + 1, tmpLast);
+
+            final double tmpAX = dataset.getXValue(series, a);
+            final double tmpAY = dataset.getYValue(series, a);
+
+            double tmpMaxArea = -1.0;
+            int tmpNext = tmpFirst;
+            double tmpLow = Double.POSITIVE_INFINITY;
+            double tmpHigh = Double.NEGATIVE_INFINITY;
+            for (int j = tmpFirst; j < tmpLimit; j++) {
+                final double tmpArea = Math.abs(((tmpAX - tmpAvgX) * (dataset.getYValue(series, j) - tmpAY))
+                        - ((tmpAX - dataset.getXValue(series, j)) * (tmpAvgY - tmpAY)));
+                if (tmpArea > tmpMaxArea) {
+                    tmpMaxArea = tmpArea;
+                    tmpNext = j;
+                }
+                tmpLow = Math.min(tmpLow, dataset.getStartYValue(series, j));
+                tmpHigh = Math.max(tmpHigh, dataset.getEndYValue(series, j));
+            }
+
+            if (tmpNext < tmpLimit) {
+                retVal.add(dataset.getXValue(series, tmpNext), dataset.getYValue(series, tmpNext), tmpLow, tmpHigh);
+                a = tmpNext;
+            }
+        }
+
+        retVal.add(dataset.getXValue(series, tmpLast), dataset.getYValue(series, tmpLast), dataset.getStartYValue(series, tmpLast),
+                dataset.getEndYValue(series, tmpLast));
+
+        return retVal;
+    }
+
+    /**
+     * Splits the x-range of the items in the range [first, limit) in to equally wide buckets and keeps the
+     * min and max point of each (in x-order).
+     */
+    static Reduced minMax(final IntervalXYDataset dataset, final int series, final int first, final int limit, final int buckets) {
+
+        final Reduced retVal = new Reduced((2 * buckets) + 2);
+
+        final int tmpLast = limit - 1;
+        final double tmpFirstX = dataset.getXValue(series, first);
+        final double tmpLastX = dataset.getXValue(series, tmpLast);
+        final double tmpScale = tmpLastX > tmpFirstX ? buckets / (tmpLastX - tmpFirstX) : 0.0;
+
+        retVal.add(tmpFirstX, dataset.getYValue(series, first), dataset.getStartYValue(series, first), dataset.getEndYValue(series, first));
+
+        int tmpBucket = -1;
+        int tmpMinIndex = -1;
+        int tmpMaxIndex = -1;
+        int tmpAnyIndex = -1;
+        double tmpLow = Double.POSITIVE_INFINITY;
+        double tmpHigh = Double.NEGATIVE_INFINITY;
+
+        for (int i = first + 1; i < tmpLast; i++) {
+
+            final int tmpItemBucket = Math.min((int) ((dataset.getXValue(series, i) - tmpFirstX) * tmpScale), buckets - 1);
+
+            if (tmpItemBucket != tmpBucket) {
+                DownsampledXYDataset.flush(dataset, series, retVal, tmpAnyIndex, tmpMinIndex, tmpMaxIndex, tmpLow, tmpHigh);
+                tmpBucket = tmpItemBucket;
+                tmpAnyIndex = i;
+                tmpMinIndex = -1;
+                tmpMaxIndex = -1;
+                tmpLow = Double.POSITIVE_INFINITY;
+                tmpHigh = Double.NEGATIVE_INFINITY;
+            }
+
+            final double tmpY = dataset.getYValue(series, i);
+            if (!Double.isNaN(tmpY)) {
+                if ((tmpMinIndex < 0) || (tmpY < dataset.getYValue(series, tmpMinIndex))) {
+                    tmpMinIndex = i;
+                }
+                if ((tmpMaxIndex < 0) || (tmpY > dataset.getYValue(series, tmpMaxIndex))) {
+                    tmpMaxIndex = i;
+                }
+            }
+            tmpLow = Math.min(tmpLow, dataset.getStartYValue(series, i));
+            tmpHigh = Math.max(tmpHigh, dataset.getEndYValue(series, i));
+        }
+        DownsampledXYDataset.flush(dataset, series, retVal, tmpAnyIndex, tmpMinIndex, tmpMaxIndex, tmpLow, tmpHigh);
+
+        retVal.add(tmpLastX, dataset.getYValue(series, tmpLast), dataset.getStartYValue(series, tmpLast), dataset.getEndYValue(series, tmpLast));
+
+        return retVal;
+    }
+
+    /**
+     * Same as {@link #minMax(IntervalXYDataset, int, int, int, int)} but the buckets are of equal item count,
+     * aligned with and read from the series' {@link MinMaxPyramid} - O(buckets) rather than O(items).
+     */
+    static Reduced pyramid(final IntervalXYDataset dataset, final int series, final MinMaxPyramid pyramid, final int first, final int limit,
+            final int buckets) {
+
+        final Reduced retVal = new Reduced((2 * buckets) + 2);
+
+        final int tmpLast = limit - 1;
+        retVal.add(dataset.getXValue(series, first), dataset.getYValue(series, first), dataset.getStartYValue(series, first),
+                dataset.getEndYValue(series, first));
+
+        // The level with the largest buckets that still gives at least the requested number of buckets
+        final int tmpItemsPerBucket = Math.max(2, (limit - first) / buckets);
+        int tmpLevel = 0;
+        while (((tmpLevel + 1) < pyramid.getLevels()) && (pyramid.getBucketSize(tmpLevel + 1) <= tmpItemsPerBucket)) {
+            tmpLevel++;
+        }
+        final int tmpSize = pyramid.getBucketSize(tmpLevel);
+
+        final MinMaxPyramid.Extent tmpExtent = new MinMaxPyramid.Extent();
+        for (int tmpStart = ((first + 1) / tmpSize) * tmpSize; tmpStart < tmpLast; tmpStart += tmpSize) {
+
+            final int tmpFrom = Math.max(tmpStart, first + 1);
+            final int tmpTo = Math.min(tmpStart + tmpSize, tmpLast);
+
+            if ((tmpFrom == tmpStart) && (tmpTo == (tmpStart + tmpSize))) {
+                pyramid.bucket(tmpLevel, tmpStart / tmpSize, tmpExtent);
+            } else {
+                pyramid.query(tmpFrom, tmpTo, tmpExtent);
+            }
+
+            DownsampledXYDataset.flush(dataset, series, retVal, tmpExtent.minIndex, tmpExtent.minIndex, tmpExtent.maxIndex, tmpExtent.low,
+                    tmpExtent.high);
+        }
+
+        retVal.add(dataset.getXValue(series, tmpLast), dataset.getYValue(series, tmpLast), dataset.getStartYValue(series, tmpLast),
+                dataset.getEndYValue(series, tmpLast));
+
+        return retVal;
+    }
+
+    /**
+     * Binary search of items in ascending x-order
+     *
+     * @param x The x-value of each item
+     * @param count The number of items
+     * @param after false: the first item with x &gt;= value, true: the first item with x &gt; value
+     */
+    static int search(final IntToDoubleFunction x, final int count, final double value, final boolean after) {
+        int retVal = 0;
+        int tmpLimit = count;
+        while (retVal < tmpLimit) {
+            final int tmpMiddle = (retVal + tmpLimit) >>> 1;
+            final double tmpX = x.applyAsDouble(tmpMiddle);
+            if (after ? tmpX <= value : tmpX < value) {
+                retVal = tmpMiddle + 1;
+            } else {
+                tmpLimit = tmpMiddle;
+            }
+        }
+        return retVal;
+    }
+
+    private static void flush(final IntervalXYDataset dataset, final int series, final Reduced reduced, final int any, final int min, final int max,
+            final double low, final double high) {
+
+        if (any < 0) {
+            return;
+        }
+
+        if (min < 0) {
+            reduced.add(dataset.getXValue(series, any), dataset.getYValue(series, any), low, high);
+        } else if (min == max) {
+            reduced.add(dataset.getXValue(series, min), dataset.getYValue(series, min), low, high);
+        } else {
+            final int tmpFirst = Math.min(min, max);
+            final int tmpSecond = Math.max(min, max);
+            reduced.add(dataset.getXValue(series, tmpFirst), dataset.getYValue(series, tmpFirst), low, high);
+            reduced.add(dataset.getXValue(series, tmpSecond), dataset.getYValue(series, tmpSecond), low, high);
+        }
+    }
+
+    private final IntervalXYDataset myDataset;
+    private final Downsampling myDownsampling;
+    private Range myDomain = null;
+    private Reduced[] myReduced = null;
+    private int myResolution = 0;
+
+    DownsampledXYDataset(final IntervalXYDataset dataset, final Downsampling downsampling) {
+
+        super();
+
+        myDataset = dataset;
+        myDownsampling = downsampling;
+
+        myDataset.addChangeListener(this);
+    }
+
+    public void datasetChanged(final DatasetChangeEvent event) {
+        myReduced = null;
+        this.fireDatasetChanged();
+    }
+
+    public Range getDomainBounds(final boolean includeInterval) {
+        if (myDataset instanceof DomainInfo) {
+            return ((DomainInfo) myDataset).getDomainBounds(includeInterval);
+        } else {
+            return DatasetUtils.iterateDomainBounds(myDataset, includeInterval);
+        }
+    }
+
+    public Range getDomainBounds(final List visibleSeriesKeys, final boolean includeInterval) {
+        if (myDataset instanceof XYDomainInfo) {
+            return ((XYDomainInfo) myDataset).getDomainBounds(visibleSeriesKeys, includeInterval);
+        } else {
+            return DatasetUtils.iterateToFindDomainBounds(myDataset, visibleSeriesKeys, includeInterval);
+        }
+    }
+
+    public double getDomainLowerBound(final boolean includeInterval) {
+        final Range tmpRange = this.getDomainBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getLowerBound() : Double.NaN;
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return myDataset.getDomainOrder();
+    }
+
+    public double getDomainUpperBound(final boolean includeInterval) {
+        final Range tmpRange = this.getDomainBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getUpperBound() : Double.NaN;
+    }
+
+    public Number getEndX(final int series, final int item) {
+        return this.getXValue(series, item);
+    }
+
+    @Override
+    public double getEndXValue(final int series, final int item) {
+        return this.getXValue(series, item);
+    }
+
+    public Number getEndY(final int series, final int item) {
+        return this.getEndYValue(series, item);
+    }
+
+    @Override
+    public double getEndYValue(final int series, final int item) {
+        final Reduced tmpReduced = this.getReduced(series);
+        return tmpReduced != null ? tmpReduced.high[item] : myDataset.getEndYValue(series, item);
+    }
+
+    public int getItemCount(final int series) {
+        final Reduced tmpReduced = this.getReduced(series);
+        return tmpReduced != null ? tmpReduced.count : myDataset.getItemCount(series);
+    }
+
+    public Range getRangeBounds(final boolean includeInterval) {
+        if (myDataset instanceof RangeInfo) {
+            return ((RangeInfo) myDataset).getRangeBounds(includeInterval);
+        } else {
+            return DatasetUtils.iterateRangeBounds(myDataset, includeInterval);
+        }
+    }
+
+    public Range getRangeBounds(final List visibleSeriesKeys, final Range xRange, final boolean includeInterval) {
+        if (myDataset instanceof XYRangeInfo) {
+            return ((XYRangeInfo) myDataset).getRangeBounds(visibleSeriesKeys, xRange, includeInterval);
+        } else {
+            return DatasetUtils.iterateToFindRangeBounds(myDataset, visibleSeriesKeys, xRange, includeInterval);
+        }
+    }
+
+    public double getRangeLowerBound(final boolean includeInterval) {
+        final Range tmpRange = this.getRangeBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getLowerBound() : Double.NaN;
+    }
+
+    public double getRangeUpperBound(final boolean includeInterval) {
+        final Range tmpRange = this.getRangeBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getUpperBound() : Double.NaN;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return myDataset.getSeriesCount();
+    }
+
+    @Override
+    public Comparable<?> getSeriesKey(final int series) {
+        return myDataset.getSeriesKey(series);
+    }
+
+    public Number getStartX(final int series, final int item) {
+        return this.getXValue(series, item);
+    }
+
+    @Override
+    public double getStartXValue(final int series, final int item) {
+        return this.getXValue(series, item);
+    }
+
+    public Number getStartY(final int series, final int item) {
+        return this.getStartYValue(series, item);
+    }
+
+    @Override
+    public double getStartYValue(final int series, final int item) {
+        final Reduced tmpReduced = this.getReduced(series);
+        return tmpReduced != null ? tmpReduced.low[item] : myDataset.getStartYValue(series, item);
+    }
+
+    public Number getX(final int series, final int item) {
+        return this.getXValue(series, item);
+    }
+
+    @Override
+    public double getXValue(final int series, final int item) {
+        final Reduced tmpReduced = this.getReduced(series);
+        return tmpReduced != null ? tmpReduced.x[item] : myDataset.getXValue(series, item);
+    }
+
+    public Number getY(final int series, final int item) {
+        return this.getYValue(series, item);
+    }
+
+    @Override
+    public double getYValue(final int series, final int item) {
+        final Reduced tmpReduced = this.getReduced(series);
+        return tmpReduced != null ? tmpReduced.y[item] : myDataset.getYValue(series, item);
+    }
+
+    /**
+     * Stop listening to (and forwarding the change events of) the underlying dataset.
+     */
+    void detach() {
+        myDataset.removeChangeListener(this);
+    }
+
+    IntervalXYDataset getDataset() {
+        return myDataset;
+    }
+
+    /**
+     * Set the (currently visible) domain range. Only the items within that range, plus one on either side,
+     * are reduced - zooming in on a long series keeps the same level of detail as the full view. null means
+     * all items.
+     */
+    void setDomain(final Range domain) {
+        if ((domain != null) ? !domain.equals(myDomain) : (myDomain != null)) {
+            myDomain = domain;
+            myReduced = null;
+        }
+    }
+
+    /**
+     * Set the number of horizontal pixels the dataset will be drawn on. Does not fire a change event - the axes
+     * ranges are derived from the full dataset and remain valid.
+     */
+    void setResolution(final int pixels) {
+        if (pixels != myResolution) {
+            myResolution = pixels;
+            myReduced = null;
+        }
+    }
+
+    private Reduced getReduced(final int series) {
+
+        if (myResolution <= 0) {
+            return null;
+        }
+
+        if (myReduced == null) {
+            myReduced = new Reduced[myDataset.getSeriesCount()];
+        }
+
+        Reduced retVal = myReduced[series];
+
+        if (retVal == null) {
+
+            final int tmpCount = myDataset.getItemCount(series);
+
+            if ((tmpCount > (4 * myResolution)) && (myDataset.getDomainOrder() == DomainOrder.ASCENDING)) {
+
+                int tmpFirst = 0;
+                int tmpLimit = tmpCount;
+                if (myDomain != null) {
+                    final IntToDoubleFunction tmpX = item -> myDataset.getXValue(series, item);
+                    tmpFirst = Math.max(DownsampledXYDataset.search(tmpX, tmpCount, myDomain.getLowerBound(), false) - 1, 0);
+                    tmpLimit = Math.min(DownsampledXYDataset.search(tmpX, tmpCount, myDomain.getUpperBound(), true) + 1, tmpCount);
+                }
+
+                if ((tmpLimit - tmpFirst) <= (4 * myResolution)) {
+                    retVal = DownsampledXYDataset.copy(myDataset, series, tmpFirst, tmpLimit);
+                } else if (myDownsampling == Downsampling.MIN_MAX) {
+                    final MinMaxPyramid tmpPyramid = myDataset instanceof PrimitiveTimeSeriesDataset
+                            ? ((PrimitiveTimeSeriesDataset) myDataset).getSeries(series).pyramid()
+                            : null;
+                    if (tmpPyramid != null) {
+                        retVal = DownsampledXYDataset.pyramid(myDataset, series, tmpPyramid, tmpFirst, tmpLimit, myResolution);
+                    } else {
+                        retVal = DownsampledXYDataset.minMax(myDataset, series, tmpFirst, tmpLimit, myResolution);
+                    }
+                } else {
+                    retVal = DownsampledXYDataset.lttb(myDataset, series, tmpFirst, tmpLimit, 2 * myResolution);
+                }
+            }
+
+            if (retVal == null) {
+                // Not worth it, or not possible - mark as pass-through
+                retVal = PASS_THROUGH;
+            }
+
+            myReduced[series] = retVal;
+        }
+
+        return retVal != PASS_THROUGH ? retVal : null;
+    }
+}
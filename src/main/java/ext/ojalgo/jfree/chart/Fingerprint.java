@@ -0,0 +1,191 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.awt.Color;
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * A 128-bit content hash of everything that affects a rendered chart - used as (part of) a cache key. Two
+ * independently seeded 64-bit lanes are accumulated so that accidental collisions are practically
+ * impossible.
+ *
+ * @see JFreeChartBuilder#fingerprint()
+ */
+public final class Fingerprint {
+
+    private static final long NULL = 0x6A09E667F3BCC908L;
+
+    private static long mix(final long value) {
+        long retVal = value;
+        retVal = (retVal ^ (retVal >>> 30)) * 0xBF58476D1CE4E5B9L;
+        retVal = (retVal ^ (retVal >>> 27)) * 0x94D049BB133111EBL;
+        return retVal ^ (retVal >>> 31);
+    }
+
+    private boolean myCacheable = true;
+    private long myFirst = 0x243F6A8885A308D3L;
+    private long mySecond = 0x13198A2E03707344L;
+
+    Fingerprint() {
+        super();
+    }
+
+    public Fingerprint add(final boolean value) {
+        return this.add(value ? 1L : 2L);
+    }
+
+    public Fingerprint add(final double value) {
+        return this.add(Double.doubleToLongBits(value));
+    }
+
+    public Fingerprint add(final double[] values, final int count) {
+        this.add(count);
+        for (int i = 0; i < count; i++) {
+            this.add(Double.doubleToLongBits(values[i]));
+        }
+        return this;
+    }
+
+    public Fingerprint add(final long value) {
+        myFirst = mix(myFirst + value) + 0x9E3779B97F4A7C15L;
+        mySecond = Long.rotateLeft(mySecond ^ mix(value ^ 0xC2B2AE3D27D4EB4FL), 23) * 0x165667B19E3779F9L;
+        return this;
+    }
+
+    /**
+     * Strings, numbers, booleans, enums, colours, decimal formats and shapes are hashed by content. Anything
+     * else can't be, and marks the fingerprint {@link #uncacheable()}.
+     */
+    public Fingerprint add(final Object value) {
+        if (value == null) {
+            return this.add(NULL);
+        } else if (value instanceof String) {
+            final String tmpString = (String) value;
+            this.add(tmpString.length());
+            for (int i = 0; i < tmpString.length(); i++) {
+                this.add(tmpString.charAt(i));
+            }
+            return this;
+        } else if (value instanceof Number) {
+            return this.add(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            return this.add(((Boolean) value).booleanValue());
+        } else if (value instanceof Enum<?>) {
+            return this.add(value.getClass().getName()).add(((Enum<?>) value).name());
+        } else if (value instanceof Color) {
+            return this.add(((Color) value).getRGB());
+        } else if (value.getClass() == DecimalFormat.class) {
+            return this.add((DecimalFormat) value);
+        } else if (value instanceof Shape) {
+            return this.add((Shape) value);
+        } else {
+            return this.add(value.getClass().getName()).uncacheable();
+        }
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Fingerprint)) {
+            return false;
+        }
+        final Fingerprint other = (Fingerprint) obj;
+        return (myFirst == other.myFirst) && (mySecond == other.mySecond) && (myCacheable == other.myCacheable);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (myFirst ^ (myFirst >>> 32));
+    }
+
+    /**
+     * @return false if anything that affects the chart could not be fingerprinted (or is random)
+     */
+    public boolean isCacheable() {
+        return myCacheable;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", myFirst, mySecond);
+    }
+
+    /**
+     * Mark the chart as not possible to cache.
+     */
+    public Fingerprint uncacheable() {
+        myCacheable = false;
+        return this;
+    }
+
+    private Fingerprint add(final DecimalFormat format) {
+
+        this.add(format.toPattern());
+        this.add(format.getPositivePrefix()).add(format.getPositiveSuffix());
+        this.add(format.getNegativePrefix()).add(format.getNegativeSuffix());
+        this.add(format.getMultiplier()).add(format.getRoundingMode());
+
+        // The pattern is localised by the symbols
+        final DecimalFormatSymbols tmpSymbols = format.getDecimalFormatSymbols();
+        this.add(tmpSymbols.getDecimalSeparator()).add(tmpSymbols.getGroupingSeparator()).add(tmpSymbols.getMinusSign());
+        this.add(tmpSymbols.getPercent()).add(tmpSymbols.getPerMill()).add(tmpSymbols.getZeroDigit());
+        this.add(tmpSymbols.getInfinity()).add(tmpSymbols.getNaN()).add(tmpSymbols.getExponentSeparator());
+
+        return this;
+    }
+
+    private Fingerprint add(final Shape shape) {
+
+        final PathIterator tmpIterator = shape.getPathIterator(null);
+        this.add(tmpIterator.getWindingRule());
+
+        final double[] tmpCoordinates = new double[6];
+        while (!tmpIterator.isDone()) {
+            final int tmpType = tmpIterator.currentSegment(tmpCoordinates);
+            this.add(tmpType);
+            switch (tmpType) {
+            case PathIterator.SEG_MOVETO:
+            case PathIterator.SEG_LINETO:
+                this.add(tmpCoordinates, 2);
+                break;
+            case PathIterator.SEG_QUADTO:
+                this.add(tmpCoordinates, 4);
+                break;
+            case PathIterator.SEG_CUBICTO:
+                this.add(tmpCoordinates, 6);
+                break;
+            default:
+                break;
+            }
+            tmpIterator.next();
+        }
+
+        return this;
+    }
+
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.UnknownKeyException;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.category.CategoryRangeInfo;
+import org.jfree.data.general.AbstractDataset;
+import org.ojalgo.ProgrammingError;
+
+/**
+ * A {@link CategoryDataset} with hashed key-to-index lookups and the values stored in a double[][] (rows x
+ * columns). Missing values are stored as NaN and reported as null. Rows and columns are kept in the order
+ * their keys were first added.
+ * <p>
+ * Use {@link #values(List, List, double[][])} to load many values with a single change event.
+ * <p>
+ * The min/max of each row, and the sums of the negative/positive values of each column (for stacked
+ * renderers), are cached. They're updated as values are set, and only recalculated (for the affected rows or
+ * columns) when that's not possible, so axis auto-ranging does not iterate over all values each time the
+ * chart is drawn.
+ */
+public final class IndexedCategoryDataset extends AbstractDataset implements CategoryDataset, CategoryRangeInfo, RangeInfo {
+
+    private static final long serialVersionUID = 1L;
+
+    private final HashMap<Comparable<?>, Integer> myColumnIndices = new HashMap<>();
+    private final ArrayList<Comparable<?>> myColumnKeys = new ArrayList<>();
+    /**
+     * Per column, NaN means not (yet) calculated
+     */
+    private double[] myNegativeSums = new double[0];
+    private double[] myPositiveSums = new double[0];
+    private final HashMap<Comparable<?>, Integer> myRowIndices = new HashMap<>();
+    private final ArrayList<Comparable<?>> myRowKeys = new ArrayList<>();
+    /**
+     * Per row, NaN means not (yet) calculated
+     */
+    private double[] myRowMaximums = new double[0];
+    private double[] myRowMinimums = new double[0];
+    private double[][] myValues = new double[0][];
+
+    public IndexedCategoryDataset() {
+        super();
+    }
+
+    /**
+     * Remove all keys and values, and fire a change event.
+     */
+    public void clear() {
+        myRowIndices.clear();
+        myRowKeys.clear();
+        myColumnIndices.clear();
+        myColumnKeys.clear();
+        myValues = new double[0][];
+        myRowMinimums = new double[0];
+        myRowMaximums = new double[0];
+        myNegativeSums = new double[0];
+        myPositiveSums = new double[0];
+        this.fireDatasetChanged();
+    }
+
+    public int getColumnCount() {
+        return myColumnKeys.size();
+    }
+
+    public int getColumnIndex(final Comparable key) {
+        final Integer retVal = myColumnIndices.get(key);
+        return retVal != null ? retVal : -1;
+    }
+
+    public Comparable getColumnKey(final int column) {
+        return myColumnKeys.get(column);
+    }
+
+    public List getColumnKeys() {
+        return Collections.unmodifiableList(myColumnKeys);
+    }
+
+    /**
+     * @return NaN for a missing value
+     */
+    public double getDoubleValue(final int row, final int column) {
+        final double[] tmpRow = myValues[row];
+        return column < tmpRow.length ? tmpRow[column] : Double.NaN;
+    }
+
+    public Range getRangeBounds(final boolean includeInterval) {
+        return this.getRangeBounds(myRowKeys, includeInterval);
+    }
+
+    public Range getRangeBounds(final List visibleSeriesKeys, final boolean includeInterval) {
+
+        double tmpMin = Double.POSITIVE_INFINITY;
+        double tmpMax = Double.NEGATIVE_INFINITY;
+
+        for (final Object tmpKey : visibleSeriesKeys) {
+            final Integer tmpRow = myRowIndices.get(tmpKey);
+            if (tmpRow != null) {
+                this.updateRowBounds(tmpRow);
+                tmpMin = Math.min(tmpMin, myRowMinimums[tmpRow]);
+                tmpMax = Math.max(tmpMax, myRowMaximums[tmpRow]);
+            }
+        }
+
+        return tmpMin <= tmpMax ? new Range(tmpMin, tmpMax) : null;
+    }
+
+    public double getRangeLowerBound(final boolean includeInterval) {
+        final Range tmpRange = this.getRangeBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getLowerBound() : Double.NaN;
+    }
+
+    public double getRangeUpperBound(final boolean includeInterval) {
+        final Range tmpRange = this.getRangeBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getUpperBound() : Double.NaN;
+    }
+
+    public int getRowCount() {
+        return myRowKeys.size();
+    }
+
+    public int getRowIndex(final Comparable key) {
+        final Integer retVal = myRowIndices.get(key);
+        return retVal != null ? retVal : -1;
+    }
+
+    public Comparable getRowKey(final int row) {
+        return myRowKeys.get(row);
+    }
+
+    public List getRowKeys() {
+        return Collections.unmodifiableList(myRowKeys);
+    }
+
+    /**
+     * The bounds of the stacked values - negative values stacked down from base and positive values stacked
+     * up from base - the same as
+     * {@link org.jfree.data.general.DatasetUtils#findStackedRangeBounds(CategoryDataset, double)} but without
+     * iterating over all values.
+     */
+    public Range getStackedRangeBounds(final double base) {
+
+        double tmpMin = Double.POSITIVE_INFINITY;
+        double tmpMax = Double.NEGATIVE_INFINITY;
+
+        for (int c = 0, tmpLimit = myColumnKeys.size(); c < tmpLimit; c++) {
+            this.updateColumnSums(c);
+            tmpMin = Math.min(tmpMin, base + myNegativeSums[c]);
+            tmpMax = Math.max(tmpMax, base + myPositiveSums[c]);
+        }
+
+        return tmpMin <= tmpMax ? new Range(tmpMin, tmpMax) : null;
+    }
+
+    public Number getValue(final Comparable rowKey, final Comparable columnKey) {
+
+        final int tmpRow = this.getRowIndex(rowKey);
+        if (tmpRow < 0) {
+            throw new UnknownKeyException("Unrecognised row key: " + rowKey);
+        }
+        final int tmpColumn = this.getColumnIndex(columnKey);
+        if (tmpColumn < 0) {
+            throw new UnknownKeyException("Unrecognised column key: " + columnKey);
+        }
+
+        return this.getValue(tmpRow, tmpColumn);
+    }
+
+    public Number getValue(final int row, final int column) {
+        final double tmpValue = this.getDoubleValue(row, column);
+        return Double.isNaN(tmpValue) ? null : Double.valueOf(tmpValue);
+    }
+
+    /**
+     * Set a single value, and fire a change event - O(1) amortised.
+     *
+     * @param value null (or NaN) means missing
+     */
+    public void setValue(final Number value, final Comparable<?> rowKey, final Comparable<?> columnKey) {
+        this.put(this.row(rowKey), this.column(columnKey), value != null ? value.doubleValue() : Double.NaN);
+        this.fireDatasetChanged();
+    }
+
+    /**
+     * Set a block of values, adding any new row/column keys, with a single change event. The values are
+     * copied.
+     *
+     * @param values [rowKeys.size()][columnKeys.size()]
+     */
+    public void values(final List<? extends Comparable<?>> rowKeys, final List<? extends Comparable<?>> columnKeys, final double[][] values) {
+
+        ProgrammingError.throwIfNull(rowKeys, columnKeys, values);
+
+        if (values.length != rowKeys.size()) {
+            throw new IllegalArgumentException("The number of value rows must match the number of row keys!");
+        }
+
+        final int tmpColumnCount = columnKeys.size();
+        final int[] tmpColumns = new int[tmpColumnCount];
+        for (int c = 0; c < tmpColumnCount; c++) {
+            tmpColumns[c] = this.column(columnKeys.get(c));
+        }
+
+        for (int r = 0; r < values.length; r++) {
+            final double[] tmpSource = values[r];
+            if (tmpSource.length != tmpColumnCount) {
+                throw new IllegalArgumentException("The number of values in each row must match the number of column keys!");
+            }
+            final int tmpRow = this.row(rowKeys.get(r));
+            this.ensureCapacity(tmpRow, myColumnKeys.size());
+            final double[] tmpDestination = myValues[tmpRow];
+            for (int c = 0; c < tmpColumnCount; c++) {
+                tmpDestination[tmpColumns[c]] = tmpSource[c];
+            }
+            myRowMinimums[tmpRow] = Double.NaN;
+            myRowMaximums[tmpRow] = Double.NaN;
+        }
+
+        for (int c = 0; c < tmpColumnCount; c++) {
+            myNegativeSums[tmpColumns[c]] = Double.NaN;
+            myPositiveSums[tmpColumns[c]] = Double.NaN;
+        }
+
+        this.fireDatasetChanged();
+    }
+
+    void fingerprint(final Fingerprint fingerprint) {
+        final int tmpRowCount = myRowKeys.size();
+        final int tmpColumnCount = myColumnKeys.size();
+        fingerprint.add(tmpRowCount).add(tmpColumnCount);
+        for (int r = 0; r < tmpRowCount; r++) {
+            fingerprint.add(myRowKeys.get(r).toString());
+        }
+        for (int c = 0; c < tmpColumnCount; c++) {
+            fingerprint.add(myColumnKeys.get(c).toString());
+        }
+        for (int r = 0; r < tmpRowCount; r++) {
+            for (int c = 0; c < tmpColumnCount; c++) {
+                fingerprint.add(this.getDoubleValue(r, c));
+            }
+        }
+    }
+
+    /**
+     * @return The index of the column, added if it did not exist
+     */
+    private int column(final Comparable<?> key) {
+        ProgrammingError.throwIfNull(key);
+        Integer retVal = myColumnIndices.get(key);
+        if (retVal == null) {
+            retVal = myColumnKeys.size();
+            myColumnIndices.put(key, retVal);
+            myColumnKeys.add(key);
+            if (retVal == myNegativeSums.length) {
+                myNegativeSums = Arrays.copyOf(myNegativeSums, Math.max(8, 2 * myNegativeSums.length));
+                myPositiveSums = Arrays.copyOf(myPositiveSums, myNegativeSums.length);
+            }
+            myNegativeSums[retVal] = 0.0;
+            myPositiveSums[retVal] = 0.0;
+        }
+        return retVal;
+    }
+
+    /**
+     * Grows the row's array (geometrically) so that it has at least the given number of columns
+     */
+    private void ensureCapacity(final int row, final int columns) {
+        final double[] tmpRow = myValues[row];
+        if (tmpRow.length < columns) {
+            final double[] tmpGrown = Arrays.copyOf(tmpRow, Math.max(columns, 2 * tmpRow.length));
+            Arrays.fill(tmpGrown, tmpRow.length, tmpGrown.length, Double.NaN);
+            myValues[row] = tmpGrown;
+        }
+    }
+
+    private void put(final int row, final int column, final double value) {
+
+        this.ensureCapacity(row, column + 1);
+
+        final double tmpPrevious = myValues[row][column];
+        myValues[row][column] = value;
+
+        final double tmpMin = myRowMinimums[row];
+        final double tmpMax = myRowMaximums[row];
+        if (!Double.isNaN(tmpMin)) {
+            if (((tmpPrevious == tmpMin) && !(value <= tmpMin)) || ((tmpPrevious == tmpMax) && !(value >= tmpMax))) {
+                // An extreme value was replaced - recalculate when needed
+                myRowMinimums[row] = Double.NaN;
+                myRowMaximums[row] = Double.NaN;
+            } else if (!Double.isNaN(value)) {
+                myRowMinimums[row] = Math.min(tmpMin, value);
+                myRowMaximums[row] = Math.max(tmpMax, value);
+            }
+        }
+
+        // Recalculated, rather than updated, to avoid accumulating rounding errors
+        myNegativeSums[column] = Double.NaN;
+        myPositiveSums[column] = Double.NaN;
+    }
+
+    /**
+     * @return The index of the row, added if it did not exist
+     */
+    private int row(final Comparable<?> key) {
+        ProgrammingError.throwIfNull(key);
+        Integer retVal = myRowIndices.get(key);
+        if (retVal == null) {
+            retVal = myRowKeys.size();
+            myRowIndices.put(key, retVal);
+            myRowKeys.add(key);
+            if (retVal == myValues.length) {
+                myValues = Arrays.copyOf(myValues, Math.max(8, 2 * myValues.length));
+                myRowMinimums = Arrays.copyOf(myRowMinimums, myValues.length);
+                myRowMaximums = Arrays.copyOf(myRowMaximums, myValues.length);
+            }
+            myValues[retVal] = new double[0];
+            myRowMinimums[retVal] = Double.POSITIVE_INFINITY;
+            myRowMaximums[retVal] = Double.NEGATIVE_INFINITY;
+        }
+        return retVal;
+    }
+
+    private void updateColumnSums(final int column) {
+        if (Double.isNaN(myNegativeSums[column])) {
+            double tmpNegative = 0.0;
+            double tmpPositive = 0.0;
+            for (int r = 0, tmpLimit = myRowKeys.size(); r < tmpLimit; r++) {
+                final double tmpValue = this.getDoubleValue(r, column);
+                if (tmpValue > 0.0) {
+                    tmpPositive += tmpValue;
+                } else if (tmpValue < 0.0) {
+                    tmpNegative += tmpValue;
+                }
+            }
+            myNegativeSums[column] = tmpNegative;
+            myPositiveSums[column] = tmpPositive;
+        }
+    }
+
+    private void updateRowBounds(final int row) {
+        if (Double.isNaN(myRowMinimums[row])) {
+            double tmpMin = Double.POSITIVE_INFINITY;
+            double tmpMax = Double.NEGATIVE_INFINITY;
+            final double[] tmpValues = myValues[row];
+            for (int c = 0, tmpLimit = Math.min(tmpValues.length, myColumnKeys.size()); c < tmpLimit; c++) {
+                final double tmpValue = tmpValues[c];
+                if (!Double.isNaN(tmpValue)) {
+                    tmpMin = Math.min(tmpMin, tmpValue);
+                    tmpMax = Math.max(tmpMax, tmpValue);
+                }
+            }
+            myRowMinimums[row] = tmpMin;
+            myRowMaximums[row] = tmpMax;
+        }
+    }
+
+}
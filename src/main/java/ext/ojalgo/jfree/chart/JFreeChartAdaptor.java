@@ -22,22 +22,35 @@
 package ext.ojalgo.jfree.chart;
 
 import java.awt.Paint;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 import org.jfree.chart.ChartUtils;
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.Plot;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.xy.XYDataset;
 import org.ojalgo.ProgrammingError;
 
 import ext.ojalgo.jfree.ChartBuilder;
 
 public final class JFreeChartAdaptor implements ChartBuilder.ChartResource<JFreeChart> {
 
+    private static final int BUFFER_SIZE = 8192;
     private static final String IMAGE_PNG = "image/png";
 
     private final JFreeChart myDelegate;
 
+    private PngEncoder myEncoder = null;
     private int myHeight;
+    private ChartInstrumentation.Listener myListener = null;
     private int myWidth;
 
     public JFreeChartAdaptor(final JFreeChart aDelegate) {
@@ -91,15 +104,96 @@ public final class JFreeChartAdaptor implements ChartBuilder.ChartResource<JFree
 
     public byte[] toByteArray() {
 
-        final ByteArrayOutputStream tmpStream = new ByteArrayOutputStream();
+        final ByteArrayOutputStream tmpStream = new ByteArrayOutputStream(this.estimateSize());
 
         try {
-            ChartUtils.writeChartAsPNG(tmpStream, myDelegate, myWidth, myHeight);
-        } catch (final IOException anException) {
-            // TODO Something!!
+            this.writeTo(tmpStream);
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
         }
 
         return tmpStream.toByteArray();
     }
 
+    public ByteBuffer toByteBuffer(final int sizeHint) {
+
+        final ByteBufferOutputStream tmpStream = new ByteBufferOutputStream(sizeHint);
+
+        try {
+            this.writeTo(tmpStream);
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+
+        return tmpStream.toByteBuffer();
+    }
+
+    public void writeTo(final OutputStream output) throws IOException {
+
+        this.prepare();
+
+        final ChartInstrumentation.Probe tmpDraw = ChartInstrumentation.start(myListener);
+        final BufferedImage tmpImage = myDelegate.createBufferedImage(myWidth, myHeight);
+        if (tmpDraw != null) {
+            tmpDraw.stop(ChartInstrumentation.Phase.DRAW, myDelegate.getPlot());
+        }
+
+        final ChartInstrumentation.Probe tmpEncode = ChartInstrumentation.start(myListener);
+        if (myEncoder != null) {
+            myEncoder.write(tmpImage, output);
+        } else {
+            ChartUtils.writeBufferedImageAsPNG(output, tmpImage);
+        }
+        if (tmpEncode != null) {
+            tmpEncode.stop(ChartInstrumentation.Phase.ENCODE, (long) myWidth * myHeight, 0);
+        }
+    }
+
+    public void writeTo(final WritableByteChannel channel) throws IOException {
+
+        final OutputStream tmpStream = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+
+        this.writeTo(tmpStream);
+
+        tmpStream.flush();
+    }
+
+    /**
+     * null means the default (JFreeChart) encoder
+     */
+    void setEncoder(final PngEncoder encoder) {
+        myEncoder = encoder;
+    }
+
+    /**
+     * Measure drawing and encoding. null means nothing is measured.
+     */
+    void setListener(final ChartInstrumentation.Listener listener) {
+        myListener = listener;
+    }
+
+    /**
+     * A rough guess of the encoded size - charts are mostly flat areas of colour that compress well.
+     */
+    private int estimateSize() {
+        return Math.max(BUFFER_SIZE, (myWidth * myHeight) / 8);
+    }
+
+    /**
+     * Pass the output width, and the visible domain, on to any datasets that depend on it.
+     */
+    private void prepare() {
+        final Plot tmpPlot = myDelegate.getPlot();
+        if (tmpPlot instanceof XYPlot) {
+            final XYPlot tmpXYPlot = (XYPlot) tmpPlot;
+            for (int d = 0; d < tmpXYPlot.getDatasetCount(); d++) {
+                final XYDataset tmpDataset = tmpXYPlot.getDataset(d);
+                if (tmpDataset instanceof DownsampledXYDataset) {
+                    ((DownsampledXYDataset) tmpDataset).setResolution(myWidth);
+                    ((DownsampledXYDataset) tmpDataset).setDomain(tmpXYPlot.getDomainAxis().getRange());
+                }
+            }
+        }
+    }
+
 }
@@ -23,12 +23,18 @@ package ext.ojalgo.jfree.chart;
 
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.Graphics2D;
 import java.awt.Paint;
+import java.awt.image.BufferedImage;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.zip.Deflater;
 
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.Axis;
@@ -38,6 +44,9 @@ import org.jfree.chart.axis.ValueAxis;
 import org.jfree.chart.plot.Plot;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.data.Range;
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.type.CalendarDate;
+import org.ojalgo.type.CalendarDateUnit;
 import org.ojalgo.type.ColourData;
 import org.ojalgo.type.keyvalue.StringToDouble;
 
@@ -115,6 +124,20 @@ public abstract class JFreeChartBuilder<B extends JFreeChartBuilder<B>> extends
             return this;
         }
 
+        void fingerprint(final Fingerprint fingerprint) {
+            fingerprint.add(myAnnotations.size());
+            for (final StringToDouble tmpAnnotation : myAnnotations) {
+                fingerprint.add(tmpAnnotation.key).add(tmpAnnotation.value);
+            }
+            fingerprint.add(myBase).add(myCategory).add(myFormat);
+            if (myInterval != null) {
+                fingerprint.add(myInterval.getLowerBound()).add(myInterval.getUpperBound());
+            } else {
+                fingerprint.add((Object) null);
+            }
+            fingerprint.add(myInverted).add(myLabel).add(myLogarithmic).add(myTime).add(myZeroIncluded);
+        }
+
         protected final ArrayList<StringToDouble> getAnnotations() {
             return myAnnotations;
         }
@@ -198,6 +221,10 @@ public abstract class JFreeChartBuilder<B extends JFreeChartBuilder<B>> extends
             return this;
         }
 
+        void fingerprint(final Fingerprint fingerprint) {
+            fingerprint.add(myBackground).add(myOrientation.ordinal()).add(myOutline);
+        }
+
         protected final Paint getBackground() {
             return myBackground;
         }
@@ -219,15 +246,212 @@ public abstract class JFreeChartBuilder<B extends JFreeChartBuilder<B>> extends
 
     }
 
+    /**
+     * How the chart is encoded. By default the JFreeChart (ImageIO) PNG encoder is used - setting anything
+     * here switches to an encoder that does what is specified.
+     */
+    public static final class PngParameters {
+
+        /**
+         * PNG row filters, in PNG filter type order, plus ADAPTIVE that picks the best filter per row.
+         */
+        public static enum Filter {
+            NONE, SUB, UP, AVERAGE, PAETH, ADAPTIVE;
+        }
+
+        private boolean myCustom = false;
+        private Filter myFilter = Filter.ADAPTIVE;
+        private int myLevel = Deflater.DEFAULT_COMPRESSION;
+        private boolean myPalette = false;
+
+        PngParameters() {
+            super();
+        }
+
+        /**
+         * @param level The deflate level, 0-9 - {@link Deflater#BEST_SPEED} is about as small as the default
+         *        for typical charts but a lot faster.
+         */
+        public final PngParameters compression(final int level) {
+            if ((level < Deflater.DEFAULT_COMPRESSION) || (level > Deflater.BEST_COMPRESSION)) {
+                throw new IllegalArgumentException("Deflate level must be 0-9 (or -1 for the default)!");
+            }
+            myLevel = level;
+            myCustom = true;
+            return this;
+        }
+
+        public final PngParameters filter(final Filter filter) {
+            ProgrammingError.throwIfNull(filter);
+            myFilter = filter;
+            myCustom = true;
+            return this;
+        }
+
+        /**
+         * @param palette Whether to write charts with no more than 256 distinct colours as indexed colour
+         *        images (with 1-8 bits per pixel). Antialiased charts rarely qualify.
+         * @see JFreeChartBuilder#antiAlias(boolean)
+         */
+        public final PngParameters palette(final boolean palette) {
+            myPalette = palette;
+            myCustom = true;
+            return this;
+        }
+
+        void fingerprint(final Fingerprint fingerprint) {
+            fingerprint.add(myCustom).add(myFilter.ordinal()).add(myLevel).add(myPalette);
+        }
+
+        /**
+         * @return null if the default encoder should be used
+         */
+        PngEncoder getEncoder() {
+            return myCustom ? new PngEncoder(myLevel, myFilter, myPalette) : null;
+        }
+
+    }
+
+    private static final int WARM_UP_POINTS = 64;
+
+    /**
+     * Same as {@link #warmUp(int)} with 3 iterations.
+     */
+    public static Map<String, Double> warmUp() {
+        return JFreeChartBuilder.warmUp(3);
+    }
+
+    /**
+     * Loads and exercises (so that the JIT compiles) the code paths of building and rendering charts - AWT,
+     * fonts, each of the chart builders and both PNG encoders - using tiny synthetic datasets. Call it, off the
+     * request path, after JVM start to avoid a slow first chart.
+     * <p>
+     * {@link MonteCarloBuilder} is not exercised. It draws the same way as {@link HistoryAndForecastBuilder},
+     * and warming up its simulations requires asset parameters.
+     *
+     * @param iterations The number of times each chart is built and rendered
+     * @return The time, in milliseconds, each step took - keyed by step and in the order they were done
+     */
+    public static Map<String, Double> warmUp(final int iterations) {
+
+        final Map<String, Double> retVal = new LinkedHashMap<>();
+
+        JFreeChartBuilder.time(retVal, "AWT", () -> {
+            final BufferedImage tmpImage = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+            final Graphics2D tmpGraphics = tmpImage.createGraphics();
+            tmpGraphics.setFont(JFreeChart.DEFAULT_TITLE_FONT);
+            tmpGraphics.drawString("Warm-up", 0, 32);
+            tmpGraphics.dispose();
+        });
+
+        final double[] tmpX = new double[WARM_UP_POINTS];
+        final double[] tmpY = new double[WARM_UP_POINTS];
+        final double[] tmpZ = new double[WARM_UP_POINTS];
+        for (int i = 0; i < WARM_UP_POINTS; i++) {
+            tmpX[i] = i;
+            tmpY[i] = 100.0 + (10.0 * Math.sin(i / 8.0));
+            tmpZ[i] = 100.0 + (10.0 * Math.cos(i / 8.0));
+        }
+
+        final int tmpIterations = Math.max(1, iterations);
+
+        JFreeChartBuilder.time(retVal, ScatterPlotBuilder.class.getSimpleName(), () -> {
+            for (int i = 0; i < tmpIterations; i++) {
+                final ScatterPlotBuilder tmpBuilder = new ScatterPlotBuilder();
+                tmpBuilder.addSeries("Y", tmpX, tmpY);
+                tmpBuilder.addSeries("Z", tmpX, tmpZ);
+                JFreeChartBuilder.render(tmpBuilder.legend(true).title("Warm-up"));
+            }
+        });
+
+        JFreeChartBuilder.time(retVal, HistoryAndForecastBuilder.class.getSimpleName(), () -> {
+            final CalendarDate tmpStart = CalendarDate.make(CalendarDateUnit.DAY);
+            for (int i = 0; i < tmpIterations; i++) {
+                final HistoryAndForecastBuilder tmpBuilder = new HistoryAndForecastBuilder();
+                tmpBuilder.add("Y", tmpStart, CalendarDateUnit.DAY, tmpY, ColourData.BLACK);
+                tmpBuilder.add("Z", tmpStart, CalendarDateUnit.DAY, tmpZ, ColourData.WHITE);
+                JFreeChartBuilder.render(tmpBuilder.legend(true).title("Warm-up"));
+            }
+        });
+
+        JFreeChartBuilder.time(retVal, StackedXYAreaChartBuilder.class.getSimpleName(), () -> {
+            for (int i = 0; i < tmpIterations; i++) {
+                final StackedXYAreaChartBuilder tmpBuilder = new StackedXYAreaChartBuilder();
+                tmpBuilder.addSeries("Y", tmpX, tmpY);
+                tmpBuilder.addSeries("Z", tmpX, tmpZ);
+                JFreeChartBuilder.render(tmpBuilder.legend(true).title("Warm-up"));
+            }
+        });
+
+        JFreeChartBuilder.time(retVal, BarChartBuilder.class.getSimpleName(), () -> {
+            for (int i = 0; i < tmpIterations; i++) {
+                final BarChartBuilder tmpBuilder = new BarChartBuilder();
+                for (int c = 0; c < 8; c++) {
+                    tmpBuilder.value("Y", c, tmpY[c]);
+                    tmpBuilder.value("Z", c, tmpZ[c]);
+                }
+                JFreeChartBuilder.render(tmpBuilder.legend(true).title("Warm-up"));
+            }
+        });
+
+        JFreeChartBuilder.time(retVal, StackedBarChartBuilder.class.getSimpleName(), () -> {
+            for (int i = 0; i < tmpIterations; i++) {
+                final StackedBarChartBuilder tmpBuilder = new StackedBarChartBuilder();
+                for (int c = 0; c < 8; c++) {
+                    tmpBuilder.value("Y", c, tmpY[c]);
+                    tmpBuilder.value("Z", c, tmpZ[c]);
+                }
+                JFreeChartBuilder.render(tmpBuilder.legend(true).title("Warm-up"));
+            }
+        });
+
+        JFreeChartBuilder.time(retVal, PieChartBuilder.class.getSimpleName(), () -> {
+            for (int i = 0; i < tmpIterations; i++) {
+                final PieChartBuilder tmpBuilder = new PieChartBuilder();
+                for (int c = 0; c < 8; c++) {
+                    tmpBuilder.value(c, tmpY[c]);
+                }
+                JFreeChartBuilder.render(tmpBuilder.legend(true).title("Warm-up"));
+            }
+        });
+
+        JFreeChartBuilder.time(retVal, PngEncoder.class.getSimpleName(), () -> {
+            for (int i = 0; i < tmpIterations; i++) {
+                final ScatterPlotBuilder tmpBuilder = new ScatterPlotBuilder();
+                tmpBuilder.addSeries("Y", tmpX, tmpY);
+                tmpBuilder.antiAlias(i % 2 == 0).png.compression(Deflater.BEST_SPEED).palette(true);
+                JFreeChartBuilder.render(tmpBuilder);
+            }
+        });
+
+        return retVal;
+    }
+
+    private static void render(final JFreeChartBuilder<?> builder) {
+        final JFreeChartAdaptor tmpChart = builder.build();
+        tmpChart.setWidth(400);
+        tmpChart.setHeight(300);
+        tmpChart.toByteArray();
+    }
+
+    private static void time(final Map<String, Double> timings, final String step, final Runnable task) {
+        final long tmpStart = System.nanoTime();
+        task.run();
+        timings.put(step, (System.nanoTime() - tmpStart) / 1_000_000.0);
+    }
+
     public final AxisParameters domain = new AxisParameters();
     public final PlotParameters plot = new PlotParameters();
+    public final PngParameters png = new PngParameters();
     public final AxisParameters range = new AxisParameters();
 
+    private boolean myAntiAlias = true;
     private Paint myBackground = new Color(ColourData.WHITE.getRGB());
     private boolean myBorder = false;
     private final HashMap<Comparable<?>, Paint> myColours = new HashMap<>();
 
     private boolean myLegend = false;
+    private ChartInstrumentation.Listener myListener = null;
     private String myTitle = null;
     private boolean myTooltips = false;
     private boolean myUrls = false;
@@ -236,6 +460,16 @@ public abstract class JFreeChartBuilder<B extends JFreeChartBuilder<B>> extends
         super();
     }
 
+    /**
+     * Antialiased (the default) charts look smoother but have lots of distinct colours - without
+     * antialiasing most charts can be encoded as indexed colour images, see {@link PngParameters#palette(boolean)}.
+     */
+    @SuppressWarnings("unchecked")
+    public final B antiAlias(final boolean aFlag) {
+        myAntiAlias = aFlag;
+        return (B) this;
+    }
+
     @SuppressWarnings("unchecked")
     public final B background(final Paint aPaint) {
         myBackground = aPaint;
@@ -254,6 +488,8 @@ public abstract class JFreeChartBuilder<B extends JFreeChartBuilder<B>> extends
         final String tmpTitle = this.getTitle();
         final Font tmpTitleFont = JFreeChart.DEFAULT_TITLE_FONT;
 
+        final ChartInstrumentation.Probe tmpProbe = ChartInstrumentation.start(myListener);
+
         final Plot tmpPlot = this.makePlot(plot);
 
         final boolean tmpLegend = this.isLegend();
@@ -261,8 +497,49 @@ public abstract class JFreeChartBuilder<B extends JFreeChartBuilder<B>> extends
         final JFreeChart retVal = new JFreeChart(tmpTitle, tmpTitleFont, tmpPlot, tmpLegend);
         retVal.setBackgroundPaint(this.getBackground());
         retVal.setBorderVisible(this.isBorder());
+        if (!myAntiAlias) {
+            retVal.setAntiAlias(false);
+            retVal.setTextAntiAlias(false);
+        }
+
+        if (tmpProbe != null) {
+            tmpProbe.stop(ChartInstrumentation.Phase.PLOT, tmpPlot);
+        }
 
-        return new JFreeChartAdaptor(retVal);
+        final JFreeChartAdaptor tmpAdaptor = new JFreeChartAdaptor(retVal);
+        tmpAdaptor.setListener(myListener);
+        tmpAdaptor.setEncoder(png.getEncoder());
+        return tmpAdaptor;
+    }
+
+    /**
+     * A content hash of everything that affects the chart this builder would build - the data, the axes and
+     * plot parameters, the colours, the title... Builders with the same fingerprint build identical charts.
+     *
+     * @see Fingerprint#isCacheable()
+     */
+    public final Fingerprint fingerprint() {
+
+        final Fingerprint retVal = new Fingerprint();
+
+        retVal.add(this.getClass().getName());
+        retVal.add(myAntiAlias).add(myBackground).add(myBorder).add(myLegend).add(myTitle).add(myTooltips).add(myUrls);
+
+        domain.fingerprint(retVal);
+        range.fingerprint(retVal);
+        plot.fingerprint(retVal);
+        png.fingerprint(retVal);
+
+        final ArrayList<Entry<Comparable<?>, Paint>> tmpColours = new ArrayList<>(myColours.entrySet());
+        tmpColours.sort(Comparator.comparing(entry -> entry.getKey().toString()));
+        retVal.add(tmpColours.size());
+        for (final Entry<Comparable<?>, Paint> tmpEntry : tmpColours) {
+            retVal.add(tmpEntry.getKey().toString()).add(tmpEntry.getValue());
+        }
+
+        this.fingerprint(retVal);
+
+        return retVal;
     }
 
     @SuppressWarnings("unchecked")
@@ -271,6 +548,19 @@ public abstract class JFreeChartBuilder<B extends JFreeChartBuilder<B>> extends
         return (B) this;
     }
 
+    /**
+     * Measure the phases of building (and rendering) charts - adding data to the builder, making the plot,
+     * drawing and encoding. The listener is passed on to the charts built. null (the default) means nothing
+     * is measured.
+     *
+     * @see ChartInstrumentation#flightRecorder()
+     */
+    @SuppressWarnings("unchecked")
+    public final B listener(final ChartInstrumentation.Listener listener) {
+        myListener = listener;
+        return (B) this;
+    }
+
     @SuppressWarnings("unchecked")
     public final B title(final String aTitle) {
         myTitle = aTitle;
@@ -289,6 +579,14 @@ public abstract class JFreeChartBuilder<B extends JFreeChartBuilder<B>> extends
         return (B) this;
     }
 
+    /**
+     * Add the builder's data, and any other state specific to the subclass, to the fingerprint. The default
+     * implementation marks the chart as not cacheable.
+     */
+    protected void fingerprint(final Fingerprint fingerprint) {
+        fingerprint.uncacheable();
+    }
+
     protected final Paint getBackground() {
         return myBackground;
     }
@@ -311,6 +609,13 @@ public abstract class JFreeChartBuilder<B extends JFreeChartBuilder<B>> extends
         return myColours.entrySet();
     }
 
+    /**
+     * @return null if there is no listener (nothing should be measured), otherwise a started measurement
+     */
+    final ChartInstrumentation.Probe probe() {
+        return ChartInstrumentation.start(myListener);
+    }
+
     protected final String getTitle() {
         return myTitle;
     }
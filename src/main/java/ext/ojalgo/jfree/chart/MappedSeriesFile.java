@@ -0,0 +1,342 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ojalgo.ProgrammingError;
+
+/**
+ * A file of equally long columns of little-endian doubles or longs, memory mapped (read only) so that series
+ * larger than the heap can be charted without copying. Only the pages that are actually read are loaded -
+ * combined with downsampling of the visible domain that is a small fraction of the file.
+ * <p>
+ * Layout (all little-endian):
+ * <ol>
+ * <li>int magic "OJSF", int version, int number of columns, long number of rows</li>
+ * <li>per column: byte type ('D' double, 'J' long), byte flags (1 = ascending), short name length, UTF-8
+ * name</li>
+ * <li>zero padding to a multiple of 8 bytes</li>
+ * <li>the columns, one after the other, each rows x 8 bytes</li>
+ * </ol>
+ * Use {@link #write(Path, String[], Object[])} to create such a file from in-memory columns.
+ */
+public final class MappedSeriesFile {
+
+    /**
+     * A mapped column. Any number of threads may read concurrently.
+     */
+    public static final class Column {
+
+        private final boolean myAscending;
+        private final ByteBuffer[] myChunks;
+        private final boolean myIntegral;
+        private final String myName;
+
+        Column(final String name, final boolean integral, final boolean ascending, final ByteBuffer[] chunks) {
+
+            super();
+
+            myName = name;
+            myIntegral = integral;
+            myAscending = ascending;
+            myChunks = chunks;
+        }
+
+        public String getName() {
+            return myName;
+        }
+
+        /**
+         * @return true if the values are known to be in ascending order
+         */
+        public boolean isAscending() {
+            return myAscending;
+        }
+
+        /**
+         * @return true for a column of longs, false for doubles
+         */
+        public boolean isIntegral() {
+            return myIntegral;
+        }
+
+        double doubleValue(final int row) {
+            final int tmpOffset = (row & CHUNK_MASK) << 3;
+            final ByteBuffer tmpChunk = myChunks[row >>> CHUNK_SHIFT];
+            return myIntegral ? tmpChunk.getLong(tmpOffset) : tmpChunk.getDouble(tmpOffset);
+        }
+
+        long longValue(final int row) {
+            final int tmpOffset = (row & CHUNK_MASK) << 3;
+            final ByteBuffer tmpChunk = myChunks[row >>> CHUNK_SHIFT];
+            return myIntegral ? tmpChunk.getLong(tmpOffset) : (long) tmpChunk.getDouble(tmpOffset);
+        }
+
+    }
+
+    /**
+     * Each column is mapped in chunks of (at most) 2^27 rows - 1GB
+     */
+    static final int CHUNK_SHIFT = 27;
+    static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private static final byte ASCENDING = 1;
+    private static final byte DOUBLE = 'D';
+    private static final byte LONG = 'J';
+    private static final int MAGIC = 0x46534A4F; // "OJSF" read as a little-endian int
+    private static final int VERSION = 1;
+
+    public static MappedSeriesFile open(final Path file) throws IOException {
+
+        try (FileChannel tmpChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            final long tmpFileSize = tmpChannel.size();
+
+            final ByteBuffer tmpFixed = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+            MappedSeriesFile.readFully(tmpChannel, tmpFixed, 0L);
+            if ((tmpFixed.getInt(0) != MAGIC) || (tmpFixed.getInt(4) != VERSION)) {
+                throw new IOException("Not a (version " + VERSION + ") series file: " + file);
+            }
+            final int tmpColumnCount = tmpFixed.getInt(8);
+            final long tmpRows = tmpFixed.getLong(12);
+            if ((tmpColumnCount < 0) || (tmpRows < 0L) || (tmpRows > Integer.MAX_VALUE)) {
+                throw new IOException("Corrupt, or too many rows in, series file: " + file);
+            }
+
+            long tmpPosition = 20L;
+            final byte[] tmpTypes = new byte[tmpColumnCount];
+            final byte[] tmpFlags = new byte[tmpColumnCount];
+            final String[] tmpNames = new String[tmpColumnCount];
+            final ByteBuffer tmpEntry = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            for (int c = 0; c < tmpColumnCount; c++) {
+                tmpEntry.clear();
+                MappedSeriesFile.readFully(tmpChannel, tmpEntry, tmpPosition);
+                tmpTypes[c] = tmpEntry.get(0);
+                tmpFlags[c] = tmpEntry.get(1);
+                final ByteBuffer tmpName = ByteBuffer.allocate(tmpEntry.getShort(2) & 0xFFFF);
+                MappedSeriesFile.readFully(tmpChannel, tmpName, tmpPosition + 4L);
+                tmpNames[c] = new String(tmpName.array(), StandardCharsets.UTF_8);
+                tmpPosition += 4L + tmpName.capacity();
+                if ((tmpTypes[c] != DOUBLE) && (tmpTypes[c] != LONG)) {
+                    throw new IOException("Unknown column type '" + (char) tmpTypes[c] + "' in series file: " + file);
+                }
+            }
+            tmpPosition = MappedSeriesFile.align(tmpPosition);
+
+            if ((tmpPosition + (tmpColumnCount * tmpRows * 8L)) > tmpFileSize) {
+                throw new IOException("Truncated series file: " + file);
+            }
+
+            final Map<String, Column> tmpColumns = new LinkedHashMap<>();
+            final int tmpChunkCount = (int) ((tmpRows + CHUNK_MASK) >>> CHUNK_SHIFT);
+            for (int c = 0; c < tmpColumnCount; c++) {
+                final ByteBuffer[] tmpChunks = new ByteBuffer[tmpChunkCount];
+                for (int k = 0; k < tmpChunkCount; k++) {
+                    final long tmpFirstRow = (long) k << CHUNK_SHIFT;
+                    final long tmpChunkRows = Math.min(tmpRows - tmpFirstRow, 1L << CHUNK_SHIFT);
+                    tmpChunks[k] = tmpChannel.map(FileChannel.MapMode.READ_ONLY, tmpPosition + (tmpFirstRow * 8L), tmpChunkRows * 8L)
+                            .order(ByteOrder.LITTLE_ENDIAN);
+                }
+                tmpColumns.put(tmpNames[c], new Column(tmpNames[c], tmpTypes[c] == LONG, (tmpFlags[c] & ASCENDING) != 0, tmpChunks));
+                tmpPosition += tmpRows * 8L;
+            }
+
+            return new MappedSeriesFile(file, (int) tmpRows, tmpColumns, Files.getLastModifiedTime(file).toMillis(), tmpFileSize);
+        }
+    }
+
+    /**
+     * Writes a (new) series file.
+     *
+     * @param names The column names
+     * @param columns The columns, each a double[] or a long[], all of the same length
+     */
+    public static void write(final Path file, final String[] names, final Object[] columns) throws IOException {
+
+        ProgrammingError.throwIfNull(file, names, columns);
+        if (names.length != columns.length) {
+            throw new IllegalArgumentException("Must have as many names as columns!");
+        }
+
+        final int tmpRows = columns.length > 0 ? MappedSeriesFile.length(columns[0]) : 0;
+
+        final List<byte[]> tmpNames = new ArrayList<>(names.length);
+        long tmpHeaderSize = 20L;
+        for (int c = 0; c < columns.length; c++) {
+            if (MappedSeriesFile.length(columns[c]) != tmpRows) {
+                throw new IllegalArgumentException("All columns must have the same length!");
+            }
+            final byte[] tmpName = names[c].getBytes(StandardCharsets.UTF_8);
+            if (tmpName.length > 0xFFFF) {
+                throw new IllegalArgumentException("Column name too long!");
+            }
+            tmpNames.add(tmpName);
+            tmpHeaderSize += 4L + tmpName.length;
+        }
+
+        final ByteBuffer tmpHeader = ByteBuffer.allocate((int) MappedSeriesFile.align(tmpHeaderSize)).order(ByteOrder.LITTLE_ENDIAN);
+        tmpHeader.putInt(MAGIC).putInt(VERSION).putInt(columns.length).putLong(tmpRows);
+        for (int c = 0; c < columns.length; c++) {
+            final byte[] tmpName = tmpNames.get(c);
+            tmpHeader.put(columns[c] instanceof long[] ? LONG : DOUBLE);
+            tmpHeader.put(MappedSeriesFile.isAscending(columns[c]) ? ASCENDING : 0);
+            tmpHeader.putShort((short) tmpName.length);
+            tmpHeader.put(tmpName);
+        }
+        tmpHeader.position(0);
+
+        try (FileChannel tmpChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            MappedSeriesFile.writeFully(tmpChannel, tmpHeader);
+
+            final ByteBuffer tmpBlock = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (final Object tmpColumn : columns) {
+                for (int i = 0; i < tmpRows; i++) {
+                    if (tmpColumn instanceof long[]) {
+                        tmpBlock.putLong(((long[]) tmpColumn)[i]);
+                    } else {
+                        tmpBlock.putDouble(((double[]) tmpColumn)[i]);
+                    }
+                    if (!tmpBlock.hasRemaining()) {
+                        tmpBlock.flip();
+                        MappedSeriesFile.writeFully(tmpChannel, tmpBlock);
+                        tmpBlock.clear();
+                    }
+                }
+            }
+            tmpBlock.flip();
+            MappedSeriesFile.writeFully(tmpChannel, tmpBlock);
+        }
+    }
+
+    private static long align(final long position) {
+        return (position + 7L) & ~7L;
+    }
+
+    private static boolean isAscending(final Object column) {
+        if (column instanceof long[]) {
+            final long[] tmpColumn = (long[]) column;
+            for (int i = 1; i < tmpColumn.length; i++) {
+                if (tmpColumn[i - 1] > tmpColumn[i]) {
+                    return false;
+                }
+            }
+        } else {
+            final double[] tmpColumn = (double[]) column;
+            for (int i = 1; i < tmpColumn.length; i++) {
+                if (!(tmpColumn[i - 1] <= tmpColumn[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int length(final Object column) {
+        if (column instanceof double[]) {
+            return ((double[]) column).length;
+        } else if (column instanceof long[]) {
+            return ((long[]) column).length;
+        } else {
+            throw new IllegalArgumentException("Columns must be double[] or long[]!");
+        }
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        long tmpPosition = position;
+        while (buffer.hasRemaining()) {
+            final int tmpRead = channel.read(buffer, tmpPosition);
+            if (tmpRead < 0) {
+                throw new IOException("Unexpected end of series file!");
+            }
+            tmpPosition += tmpRead;
+        }
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private final Map<String, Column> myColumns;
+    private final Path myFile;
+    private final long myLastModified;
+    private final int myRowCount;
+    private final long mySize;
+
+    private MappedSeriesFile(final Path file, final int rows, final Map<String, Column> columns, final long lastModified, final long size) {
+
+        super();
+
+        myFile = file;
+        myRowCount = rows;
+        myColumns = columns;
+        myLastModified = lastModified;
+        mySize = size;
+    }
+
+    /**
+     * @throws IllegalArgumentException If there is no such column
+     */
+    public Column getColumn(final String name) {
+        final Column retVal = myColumns.get(name);
+        if (retVal == null) {
+            throw new IllegalArgumentException("No such column: " + name);
+        }
+        return retVal;
+    }
+
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(new ArrayList<>(myColumns.keySet()));
+    }
+
+    public Path getFile() {
+        return myFile;
+    }
+
+    public int getRowCount() {
+        return myRowCount;
+    }
+
+    /**
+     * The file's identity (path, size and modification time) rather than its contents - hashing a multi-GB
+     * file would defeat the purpose of mapping it.
+     */
+    void fingerprint(final Fingerprint fingerprint) {
+        fingerprint.add(myFile.toAbsolutePath().toString()).add(mySize).add(myLastModified).add(myRowCount);
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+/**
+ * A multi-resolution min/max index over the items of a (fixed) time series. Level 0 has a bucket per 2
+ * items, level 1 per 4 items, and so on. Each bucket stores the index of the min and max y-value, and the
+ * min start-y and max end-y, of the items it covers - the first/last item of a bucket are implied by its
+ * position. The min/max of any item range can be found in O(log n), and a range can be reduced to a
+ * number of buckets by reading directly from the level that matches.
+ * <p>
+ * Takes about 24 bytes per item, built once in O(n).
+ */
+final class MinMaxPyramid {
+
+    /**
+     * The min/max of a range of items. The indices are -1 if the range is empty.
+     */
+    static final class Extent {
+
+        double high;
+        double low;
+        int maxIndex;
+        int minIndex;
+
+        Extent() {
+            super();
+            this.reset();
+        }
+
+        void reset() {
+            high = Double.NEGATIVE_INFINITY;
+            low = Double.POSITIVE_INFINITY;
+            maxIndex = -1;
+            minIndex = -1;
+        }
+
+    }
+
+    private static double max(final double a, final double b) {
+        return (a >= b) || Double.isNaN(b) ? a : b;
+    }
+
+    private static double min(final double a, final double b) {
+        return (a <= b) || Double.isNaN(b) ? a : b;
+    }
+
+    private final double[][] myHigh;
+    private final double[][] myLow;
+    private final int[][] myMaxIndex;
+    private final int[][] myMinIndex;
+    private final PrimitiveTimeSeriesDataset.Series mySeries;
+
+    MinMaxPyramid(final PrimitiveTimeSeriesDataset.Series series) {
+
+        super();
+
+        mySeries = series;
+
+        final int tmpCount = series.count();
+        int tmpLevels = 0;
+        while ((tmpCount >> (tmpLevels + 1)) > 0) {
+            tmpLevels++;
+        }
+
+        myMinIndex = new int[tmpLevels][];
+        myMaxIndex = new int[tmpLevels][];
+        myLow = new double[tmpLevels][];
+        myHigh = new double[tmpLevels][];
+
+        for (int l = 0; l < tmpLevels; l++) {
+
+            final int tmpBuckets = tmpCount >> (l + 1);
+            final int[] tmpMinIndex = myMinIndex[l] = new int[tmpBuckets];
+            final int[] tmpMaxIndex = myMaxIndex[l] = new int[tmpBuckets];
+            final double[] tmpLow = myLow[l] = new double[tmpBuckets];
+            final double[] tmpHigh = myHigh[l] = new double[tmpBuckets];
+
+            for (int b = 0; b < tmpBuckets; b++) {
+                final int tmpA = 2 * b;
+                final int tmpB = tmpA + 1;
+                if (l == 0) {
+                    tmpMinIndex[b] = this.argmin(tmpA, tmpB);
+                    tmpMaxIndex[b] = this.argmax(tmpA, tmpB);
+                    tmpLow[b] = MinMaxPyramid.min(series.low(tmpA), series.low(tmpB));
+                    tmpHigh[b] = MinMaxPyramid.max(series.high(tmpA), series.high(tmpB));
+                } else {
+                    tmpMinIndex[b] = this.argmin(myMinIndex[l - 1][tmpA], myMinIndex[l - 1][tmpB]);
+                    tmpMaxIndex[b] = this.argmax(myMaxIndex[l - 1][tmpA], myMaxIndex[l - 1][tmpB]);
+                    tmpLow[b] = MinMaxPyramid.min(myLow[l - 1][tmpA], myLow[l - 1][tmpB]);
+                    tmpHigh[b] = MinMaxPyramid.max(myHigh[l - 1][tmpA], myHigh[l - 1][tmpB]);
+                }
+            }
+        }
+    }
+
+    /**
+     * The extent of the bucket (at the level) - no range checks.
+     */
+    void bucket(final int level, final int bucket, final Extent extent) {
+        extent.reset();
+        this.include(level, bucket, extent);
+    }
+
+    /**
+     * @return The number of items per bucket at the level
+     */
+    int getBucketSize(final int level) {
+        return 2 << level;
+    }
+
+    int getLevels() {
+        return myMinIndex.length;
+    }
+
+    /**
+     * The extent of the items in the range [first, limit)
+     */
+    void query(final int first, final int limit, final Extent extent) {
+
+        extent.reset();
+
+        int tmpLeft = first;
+        int tmpRight = limit;
+        for (int l = -1; tmpLeft < tmpRight; l++) {
+            if ((tmpLeft & 1) != 0) {
+                this.include(l, tmpLeft++, extent);
+            }
+            if ((tmpRight & 1) != 0) {
+                this.include(l, --tmpRight, extent);
+            }
+            tmpLeft >>= 1;
+            tmpRight >>= 1;
+        }
+    }
+
+    private int argmax(final int a, final int b) {
+        final double tmpA = mySeries.value(a);
+        final double tmpB = mySeries.value(b);
+        return (tmpB > tmpA) || (Double.isNaN(tmpA) && !Double.isNaN(tmpB)) ? b : a;
+    }
+
+    private int argmin(final int a, final int b) {
+        final double tmpA = mySeries.value(a);
+        final double tmpB = mySeries.value(b);
+        return (tmpB < tmpA) || (Double.isNaN(tmpA) && !Double.isNaN(tmpB)) ? b : a;
+    }
+
+    /**
+     * @param level -1 means a single item
+     */
+    private void include(final int level, final int index, final Extent extent) {
+
+        final int tmpMinIndex;
+        final int tmpMaxIndex;
+        if (level < 0) {
+            tmpMinIndex = index;
+            tmpMaxIndex = index;
+            extent.low = MinMaxPyramid.min(extent.low, mySeries.low(index));
+            extent.high = MinMaxPyramid.max(extent.high, mySeries.high(index));
+        } else {
+            tmpMinIndex = myMinIndex[level][index];
+            tmpMaxIndex = myMaxIndex[level][index];
+            extent.low = MinMaxPyramid.min(extent.low, myLow[level][index]);
+            extent.high = MinMaxPyramid.max(extent.high, myHigh[level][index]);
+        }
+
+        extent.minIndex = extent.minIndex < 0 ? tmpMinIndex : this.argmin(extent.minIndex, tmpMinIndex);
+        extent.maxIndex = extent.maxIndex < 0 ? tmpMaxIndex : this.argmax(extent.maxIndex, tmpMaxIndex);
+    }
+
+}
@@ -23,6 +23,7 @@ package ext.ojalgo.jfree.chart;
 
 import java.awt.Color;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.jfree.chart.plot.Plot;
 import org.ojalgo.finance.portfolio.SimpleAsset;
@@ -33,7 +34,6 @@ import org.ojalgo.random.LogNormal;
 import org.ojalgo.random.SampleSet;
 import org.ojalgo.random.process.GeometricBrownianMotion;
 import org.ojalgo.random.process.RandomProcess;
-import org.ojalgo.series.CalendarDateSeries;
 import org.ojalgo.structure.Access2D;
 import org.ojalgo.type.CalendarDate;
 import org.ojalgo.type.CalendarDateDuration;
@@ -45,13 +45,22 @@ import org.ojalgo.type.ColourData;
  */
 public class MonteCarloBuilder extends HistoryAndForecastBuilder {
 
+    /**
+     * The number of scenarios simulated (and kept in memory) at a time in fan mode
+     */
+    private static final int FAN_BLOCK = 1024;
+    private static final double[] FAN_PROBABILITIES = { 0.05, 0.25, 0.50, 0.75, 0.95 };
+
     private final CalendarDateUnit myAssetDataUnit;
     private double myConfidence = 0.95;
     private final SimplePortfolio myPortfolio;
+    private int myFanPaths = -1;
     private CalendarDateDuration myRange = new CalendarDateDuration(3, CalendarDateUnit.YEAR);
     private CalendarDateDuration myRebalance = new CalendarDateDuration(1, CalendarDateUnit.YEAR);
+    private int myParallelism = 1;
     private int myRealisations = 9;
     private CalendarDateUnit myResolution = CalendarDateUnit.WEEK;
+    private Long mySeed = null;
 
     public MonteCarloBuilder(final Access2D<?> aCorrelationsMatrix, final List<SimpleAsset> someAssets) {
         this(aCorrelationsMatrix, someAssets, CalendarDateUnit.YEAR);
@@ -77,11 +86,41 @@ public class MonteCarloBuilder extends HistoryAndForecastBuilder {
         return this;
     }
 
+    /**
+     * Instead of plotting every scenario, plot empirical 5-95 and 25-75 percentile bands (around the median)
+     * together with the first few scenarios. The percentiles are estimated on the fly, so memory use does
+     * not grow with the number of {@link #scenarios(int)} - this makes it practical to simulate very many of
+     * them. Requires continuous rebalancing - see {@link #rebalance(CalendarDateDuration)}.
+     *
+     * @param samplePaths The number of individual scenarios to plot on top of the bands
+     */
+    public final MonteCarloBuilder fan(final int samplePaths) {
+        myFanPaths = Math.max(0, samplePaths);
+        return this;
+    }
+
+    /**
+     * Simulate the scenarios using this many threads. Each scenario gets its own random number stream so the
+     * result (for a given {@link #seed(long)}) does not depend on the number of threads. More than 1 thread
+     * requires continuous rebalancing - see {@link #rebalance(CalendarDateDuration)}.
+     */
+    public final MonteCarloBuilder parallelism(final int aValue) {
+        myParallelism = aValue;
+        return this;
+    }
+
     public final MonteCarloBuilder range(final CalendarDateDuration aValue) {
         myRange = aValue;
         return this;
     }
 
+    /**
+     * How often the portfolio is rebalanced (to its initial weights) in the simulated scenarios. The default
+     * is once a year. null, or a zero duration, means continuously - the portfolio's
+     * {@link GeometricBrownianMotion} forecast is then simulated directly. That is required by
+     * {@link #fan(int)}, {@link #parallelism(int)} and {@link #seed(long)}; building the chart throws an
+     * {@link IllegalStateException} if any of those are combined with a rebalancing interval.
+     */
     public final MonteCarloBuilder rebalance(final CalendarDateDuration aValue) {
         myRebalance = aValue;
         return this;
@@ -97,6 +136,39 @@ public class MonteCarloBuilder extends HistoryAndForecastBuilder {
         return this;
     }
 
+    /**
+     * Makes the simulation reproducible - the same seed always gives the same scenarios (and scenario
+     * colours). Requires continuous rebalancing - see {@link #rebalance(CalendarDateDuration)}.
+     *
+     * @see #parallelism(int)
+     */
+    public final MonteCarloBuilder seed(final long aValue) {
+        mySeed = aValue;
+        return this;
+    }
+
+    /**
+     * Only seeded simulations are cacheable - the fingerprint then covers the portfolio forecast, the
+     * simulation parameters and the (resolution aligned) start date.
+     */
+    @Override
+    protected void fingerprint(final Fingerprint fingerprint) {
+
+        if (mySeed == null) {
+            fingerprint.uncacheable();
+            return;
+        }
+
+        super.fingerprint(fingerprint);
+
+        final GeometricBrownianMotion tmpForecaster = myPortfolio.forecast();
+        final LogNormal tmpUnit = tmpForecaster.getDistribution(PrimitiveMath.ONE);
+        fingerprint.add(tmpForecaster.getValue()).add(tmpUnit.getGeometricMean()).add(tmpUnit.getGeometricStandardDeviation());
+
+        fingerprint.add(myAssetDataUnit.name()).add(myConfidence).add(myFanPaths).add(myRange.toString()).add(myRealisations);
+        fingerprint.add(myResolution.name()).add(CalendarDate.make(myResolution).millis).add(mySeed.longValue());
+    }
+
     @Override
     protected Plot makePlot(final JFreeChartBuilder.PlotParameters parameters) {
 
@@ -105,52 +177,159 @@ public class MonteCarloBuilder extends HistoryAndForecastBuilder {
 
         final int tmpSteps = myRange.convertTo(myResolution).intValue();
         final double tmpStepSize = myAssetDataUnit.convert(myResolution);
-        final int tmpInterval = myRebalance.convertTo(myResolution).intValue();
+        final int tmpInterval = myRebalance != null ? myRebalance.convertTo(myResolution).intValue() : 0;
+
+        if ((tmpInterval > 0) && ((myFanPaths >= 0) || (myParallelism > 1) || (mySeed != null))) {
+            throw new IllegalStateException("Fan mode, parallelism and seed require continuous rebalancing - call rebalance(null)!");
+        }
 
         final LogNormal[] tmpDistributions = new LogNormal[tmpSteps];
         for (int s = 0; s < tmpSteps; s++) {
             tmpDistributions[s] = tmpForecaster.getDistribution(tmpStepSize * (PrimitiveMath.ONE + s));
         }
 
-        final RandomProcess.SimulationResults tmpSamples;
-        if (tmpInterval > 0) {
-            final PortfolioSimulator tmpSimulator = myPortfolio.getSimulator();
-            tmpSamples = tmpSimulator.simulate(myRealisations, tmpSteps, tmpStepSize, tmpInterval);
+        final CalendarDate tmpStart = CalendarDate.make(myResolution);
+
+        final double[] tmpDistributionLow = new double[tmpSteps + 1];
+        final double[] tmpDistributionValues = new double[tmpSteps + 1];
+        final double[] tmpDistributionHigh = new double[tmpSteps + 1];
+        tmpDistributionLow[0] = tmpInitialValue;
+        tmpDistributionValues[0] = tmpInitialValue;
+        tmpDistributionHigh[0] = tmpInitialValue;
+
+        for (int s = 0; s < tmpSteps; s++) {
+
+            final LogNormal tmpLogNormal = tmpDistributions[s];
+
+            tmpDistributionLow[s + 1] = tmpLogNormal.getLowerConfidenceQuantile(myConfidence);
+            tmpDistributionValues[s + 1] = tmpLogNormal.getGeometricMean();
+            tmpDistributionHigh[s + 1] = tmpLogNormal.getUpperConfidenceQuantile(myConfidence);
+        }
+
+        final String tmpDistributionName = "Distribution Confidence";
+        myCollection.addSeries(tmpDistributionName, tmpStart, myResolution, tmpDistributionLow, tmpDistributionValues, tmpDistributionHigh);
+        this.putColour(tmpDistributionName, Color.LIGHT_GRAY);
+
+        if (myFanPaths >= 0) {
+            this.fan(new ScenarioGenerator(tmpForecaster, tmpStepSize, this.seed()), tmpSteps, tmpStart);
+        } else {
+            this.scenarios(tmpForecaster, tmpSteps, tmpStepSize, tmpInterval, tmpStart);
+        }
+
+        return super.makePlot(parameters);
+    }
+
+    /**
+     * Derived from the seed and the scenario index when seeded, so that the chart is reproducible
+     */
+    private ColourData colour(final int scenario) {
+        if (mySeed != null) {
+            return new ColourData((int) ScenarioGenerator.mix(~mySeed.longValue(), scenario) & 0xFFFFFF);
         } else {
-            tmpSamples = tmpForecaster.simulate(myRealisations, tmpSteps, tmpStepSize);
+            return ColourData.random();
         }
+    }
 
-        CalendarDate tmpDate = CalendarDate.make(myResolution);
+    /**
+     * Simulates block by block, always feeding the values to the estimators in scenario order, so the result
+     * (for a given seed) does not depend on the number of threads.
+     */
+    private void fan(final ScenarioGenerator generator, final int steps, final CalendarDate start) {
 
-        final CalendarDateSeries<NumberWithRange> tmpDistributionConfidenceSeries = new CalendarDateSeries<NumberWithRange>(myResolution)
-                .name("Distribution Confidence").colour(new ColourData(Color.LIGHT_GRAY.getRGB()));
-        tmpDistributionConfidenceSeries.put(tmpDate, new NumberWithRange(tmpInitialValue));
-        final CalendarDateSeries<Double>[] tmpMonteCarloScenarioSeries = (CalendarDateSeries<Double>[]) new CalendarDateSeries<?>[myRealisations];
-        for (int r = 0; r < myRealisations; r++) {
-            tmpMonteCarloScenarioSeries[r] = new CalendarDateSeries<Double>(myResolution).name("Scenario-" + r).colour(ColourData.random());
-            tmpMonteCarloScenarioSeries[r].put(tmpDate, tmpInitialValue);
+        final int tmpPaths = Math.min(myFanPaths, myRealisations);
+        final double[][] tmpSamplePaths = new double[tmpPaths][];
+
+        final P2Quantile[][] tmpEstimators = new P2Quantile[steps + 1][FAN_PROBABILITIES.length];
+        for (int s = 0; s <= steps; s++) {
+            for (int p = 0; p < FAN_PROBABILITIES.length; p++) {
+                tmpEstimators[s][p] = new P2Quantile(FAN_PROBABILITIES[p]);
+            }
         }
 
-        for (int s = 0; s < tmpSteps; s++) {
+        final int tmpBlockSize = Math.max(1, Math.min(FAN_BLOCK, myRealisations));
+        final double[][] tmpBlock = new double[tmpBlockSize][steps + 1];
 
-            tmpDate = tmpDate.step(myResolution);
+        final ForkJoinPool tmpPool = myParallelism > 1 ? new ForkJoinPool(myParallelism) : null;
+        try {
+            for (int tmpFirst = 0; tmpFirst < myRealisations; tmpFirst += tmpBlockSize) {
 
-            final SampleSet tmpSampleSet = tmpSamples.getSampleSet(s);
-            final LogNormal tmpLogNormal = tmpDistributions[s];
+                final int tmpCount = Math.min(tmpBlockSize, myRealisations - tmpFirst);
+                generator.generate(tmpFirst, tmpBlock, tmpCount, tmpPool);
+
+                for (int r = 0; r < tmpCount; r++) {
+                    final double[] tmpPath = tmpBlock[r];
+                    if ((tmpFirst + r) < tmpPaths) {
+                        tmpSamplePaths[tmpFirst + r] = tmpPath.clone();
+                    }
+                    for (int s = 0; s <= steps; s++) {
+                        final P2Quantile[] tmpStep = tmpEstimators[s];
+                        for (int p = 0; p < tmpStep.length; p++) {
+                            tmpStep[p].add(tmpPath[s]);
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (tmpPool != null) {
+                tmpPool.shutdown();
+            }
+        }
+
+        final double[][] tmpPercentiles = new double[FAN_PROBABILITIES.length][steps + 1];
+        for (int s = 0; s <= steps; s++) {
+            for (int p = 0; p < FAN_PROBABILITIES.length; p++) {
+                tmpPercentiles[p][s] = tmpEstimators[s][p].getQuantile();
+            }
+        }
 
-            tmpDistributionConfidenceSeries.put(tmpDate, new NumberWithRange(tmpLogNormal, myConfidence));
+        final String tmpOuterName = "Percentiles 5-95";
+        myCollection.addSeries(tmpOuterName, start, myResolution, tmpPercentiles[0], tmpPercentiles[2], tmpPercentiles[4]);
+        this.putColour(tmpOuterName, new Color(0x6699CC));
+
+        final String tmpInnerName = "Percentiles 25-75";
+        myCollection.addSeries(tmpInnerName, start, myResolution, tmpPercentiles[1], tmpPercentiles[2].clone(), tmpPercentiles[3]);
+        this.putColour(tmpInnerName, new Color(0x336699));
+
+        for (int r = 0; r < tmpPaths; r++) {
+            this.add("Scenario-" + r, start, myResolution, tmpSamplePaths[r], this.colour(r));
+        }
+    }
 
+    private void scenarios(final GeometricBrownianMotion forecaster, final int steps, final double stepSize, final int interval, final CalendarDate start) {
+
+        final double tmpInitialValue = forecaster.getValue();
+
+        final double[][] tmpMonteCarloScenarioValues;
+        if ((mySeed != null) || (myParallelism > 1)) {
+            final ScenarioGenerator tmpGenerator = new ScenarioGenerator(forecaster, stepSize, this.seed());
+            tmpMonteCarloScenarioValues = tmpGenerator.generate(myRealisations, steps, myParallelism);
+        } else {
+            final RandomProcess.SimulationResults tmpSamples;
+            if (interval > 0) {
+                final PortfolioSimulator tmpSimulator = myPortfolio.getSimulator();
+                tmpSamples = tmpSimulator.simulate(myRealisations, steps, stepSize, interval);
+            } else {
+                tmpSamples = forecaster.simulate(myRealisations, steps, stepSize);
+            }
+            tmpMonteCarloScenarioValues = new double[myRealisations][steps + 1];
             for (int r = 0; r < myRealisations; r++) {
-                tmpMonteCarloScenarioSeries[r].put(tmpDate, tmpSampleSet.get(r));
+                tmpMonteCarloScenarioValues[r][0] = tmpInitialValue;
+            }
+            for (int s = 0; s < steps; s++) {
+                final SampleSet tmpSampleSet = tmpSamples.getSampleSet(s);
+                for (int r = 0; r < myRealisations; r++) {
+                    tmpMonteCarloScenarioValues[r][s + 1] = tmpSampleSet.doubleValue(r);
+                }
             }
         }
 
-        this.add(tmpDistributionConfidenceSeries);
         for (int r = 0; r < myRealisations; r++) {
-            this.add(tmpMonteCarloScenarioSeries[r]);
+            this.add("Scenario-" + r, start, myResolution, tmpMonteCarloScenarioValues[r], this.colour(r));
         }
+    }
 
-        return super.makePlot(parameters);
+    private long seed() {
+        return mySeed != null ? mySeed.longValue() : System.nanoTime();
     }
 
 }
@@ -25,12 +25,9 @@ import java.awt.Color;
 import java.awt.Shape;
 import java.util.Map;
 
-import org.jfree.data.xy.DefaultTableXYDataset;
 import org.jfree.data.xy.IntervalXYDataset;
 import org.jfree.data.xy.TableXYDataset;
 import org.jfree.data.xy.XYDataset;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
 import org.ojalgo.scalar.Scalar;
 import org.ojalgo.series.NumberSeries;
 
@@ -41,7 +38,7 @@ import org.ojalgo.series.NumberSeries;
  */
 public abstract class NumberSeriesCollection extends AbstractSeriesData<Number, Number, NumberSeriesCollection> {
 
-    private final XYSeriesCollection myCollection = new XYSeriesCollection();
+    private final PrimitiveXYDataset myCollection = new PrimitiveXYDataset();
 
     protected NumberSeriesCollection() {
 
@@ -60,41 +57,82 @@ public abstract class NumberSeriesCollection extends AbstractSeriesData<Number,
 
     public void addSeries(final NumberSeries<?> aSeries, final Shape shape) {
 
-        final XYSeries tmpSeries = new XYSeries(aSeries.getName(), true, false);
+        final ChartInstrumentation.Probe tmpProbe = this.probe();
 
-        Comparable<?> tmpKey;
-        Comparable<?> tmpValue;
+        final int tmpSize = aSeries.size();
+        final double[] tmpKeys = new double[tmpSize];
+        final double[] tmpValues = new double[tmpSize];
+
+        int i = 0;
         for (final Map.Entry<? extends Comparable<?>, ? extends Comparable<?>> tmpEntry : aSeries.entrySet()) {
-            tmpKey = tmpEntry.getKey();
-            tmpValue = tmpEntry.getValue();
-            tmpSeries.add(Scalar.doubleValue(tmpKey), Scalar.doubleValue(tmpValue));
+            tmpKeys[i] = Scalar.doubleValue(tmpEntry.getKey());
+            tmpValues[i] = Scalar.doubleValue(tmpEntry.getValue());
+            i++;
         }
 
-        myCollection.addSeries(tmpSeries);
+        myCollection.addSeries(aSeries.getName(), tmpKeys, tmpValues);
 
         this.putColour(aSeries.getName(), new Color(aSeries.getColour().getRGB()));
         this.putShape(aSeries.getName(), shape);
+
+        if (tmpProbe != null) {
+            tmpProbe.stop(ChartInstrumentation.Phase.INGEST, tmpSize, 1);
+        }
+    }
+
+    /**
+     * The arrays are not copied - the collection takes ownership of them.
+     */
+    public void addSeries(final String name, final double[] x, final double[] y) {
+        this.addSeries(name, x, y, null);
+    }
+
+    /**
+     * The arrays are not copied - the collection takes ownership of them.
+     */
+    public void addSeries(final String name, final double[] x, final double[] y, final Shape shape) {
+
+        myCollection.addSeries(name, x, y);
+
+        this.putShape(name, shape);
+    }
+
+    /**
+     * A series read, zero-copy, from memory mapped columns of a {@link MappedSeriesFile} - for series larger
+     * than the heap.
+     */
+    public void addSeries(final String name, final MappedSeriesFile file, final String x, final String y, final Shape shape) {
+
+        myCollection.addSeries(name, file, x, y);
+
+        this.putShape(name, shape);
+    }
+
+    @Override
+    protected void fingerprint(final Fingerprint fingerprint) {
+        super.fingerprint(fingerprint);
+        myCollection.fingerprint(fingerprint);
     }
 
     @Override
     protected IntervalXYDataset getIntervalXYData() {
-        return myCollection;
+        return this.downsampled(myCollection);
     }
 
     @Override
     protected TableXYDataset getTableXYData() {
+        return new AlignedTableXYDataset(myCollection);
+    }
 
-        final DefaultTableXYDataset retVal = new DefaultTableXYDataset();
-
-        for (final Object tmpXYSeries : myCollection.getSeries()) {
-            retVal.addSeries((XYSeries) tmpXYSeries);
-        }
-
-        return retVal;
+    /**
+     * The full dataset, never downsampled
+     */
+    final PrimitiveXYDataset getRawXYData() {
+        return myCollection;
     }
 
     @Override
     protected XYDataset getXYData() {
-        return myCollection;
+        return this.downsampled(myCollection);
     }
 }
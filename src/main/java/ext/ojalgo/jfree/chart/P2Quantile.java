@@ -0,0 +1,127 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.util.Arrays;
+
+/**
+ * Streaming estimate of a single quantile using the P-square algorithm (Jain &amp; Chlamtac, 1985). Uses constant
+ * memory (5 markers) regardless of the number of observations.
+ */
+final class P2Quantile {
+
+    private int myCount = 0;
+    private final double[] myDesiredIncrements;
+    private final double[] myDesiredPositions = new double[5];
+    private final double[] myHeights = new double[5];
+    private final int[] myPositions = new int[5];
+    private final double myProbability;
+
+    P2Quantile(final double probability) {
+
+        super();
+
+        myProbability = probability;
+        myDesiredIncrements = new double[] { 0.0, probability / 2.0, probability, (1.0 + probability) / 2.0, 1.0 };
+    }
+
+    void add(final double observation) {
+
+        if (Double.isNaN(observation)) {
+            return;
+        }
+
+        if (myCount < 5) {
+            myHeights[myCount++] = observation;
+            if (myCount == 5) {
+                Arrays.sort(myHeights);
+                for (int i = 0; i < 5; i++) {
+                    myPositions[i] = i;
+                }
+                myDesiredPositions[0] = 0.0;
+                myDesiredPositions[1] = 2.0 * myProbability;
+                myDesiredPositions[2] = 4.0 * myProbability;
+                myDesiredPositions[3] = 2.0 + (2.0 * myProbability);
+                myDesiredPositions[4] = 4.0;
+            }
+            return;
+        }
+
+        final double[] q = myHeights;
+        final int[] n = myPositions;
+
+        int k;
+        if (observation < q[0]) {
+            q[0] = observation;
+            k = 0;
+        } else if (observation >= q[4]) {
+            q[4] = observation;
+            k = 3;
+        } else {
+            k = 0;
+            while (observation >= q[k + 1]) {
+                k++;
+            }
+        }
+
+        for (int i = k + 1; i < 5; i++) {
+            n[i]++;
+        }
+        for (int i = 0; i < 5; i++) {
+            myDesiredPositions[i] += myDesiredIncrements[i];
+        }
+
+        for (int i = 1; i < 4; i++) {
+            final double d = myDesiredPositions[i] - n[i];
+            if (((d >= 1.0) && ((n[i + 1] - n[i]) > 1)) || ((d <= -1.0) && ((n[i - 1] - n[i]) < -1))) {
+                final int s = d >= 0.0 ? 1 : -1;
+                final double tmpParabolic = q[i] + ((s / (double) (n[i + 1] - n[i - 1]))
+                        * ((((n[i] - n[i - 1]) + s) * ((q[i + 1] - q[i]) / (n[i + 1] - n[i]))) + (((n[i + 1] - n[i]) - s) * ((q[i] - q[i - 1]) / (n[i] - n[i - 1])))));
+                if ((q[i - 1] < tmpParabolic) && (tmpParabolic < q[i + 1])) {
+                    q[i] = tmpParabolic;
+                } else {
+                    q[i] = q[i] + ((s * (q[i + s] - q[i])) / (n[i + s] - n[i]));
+                }
+                n[i] += s;
+            }
+        }
+
+        myCount++;
+    }
+
+    long count() {
+        return myCount;
+    }
+
+    double getQuantile() {
+        if (myCount >= 5) {
+            return myHeights[2];
+        } else if (myCount > 0) {
+            final double[] tmpSorted = Arrays.copyOf(myHeights, myCount);
+            Arrays.sort(tmpSorted);
+            return tmpSorted[(int) Math.round(myProbability * (myCount - 1))];
+        } else {
+            return Double.NaN;
+        }
+    }
+
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import ext.ojalgo.jfree.chart.JFreeChartBuilder.PngParameters;
+
+/**
+ * A PNG encoder with a configurable deflate level and filter strategy. Images with at most 256 distinct
+ * colours can (optionally) be written as indexed colour - 1, 2, 4 or 8 bits per pixel rather than 24 or 32.
+ * Charts are typically a handful of series paints on a plain background, so that is a lot less to filter
+ * and compress.
+ */
+final class PngEncoder {
+
+    /**
+     * Buffers the (compressed) image data and writes it as IDAT chunks
+     */
+    static final class ChunkOutputStream extends OutputStream {
+
+        private final byte[] myBuffer;
+        private int myCount = 0;
+        private final OutputStream myOutput;
+
+        ChunkOutputStream(final OutputStream output, final int size) {
+
+            super();
+
+            myOutput = output;
+            myBuffer = new byte[size];
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (myCount > 0) {
+                PngEncoder.chunk(myOutput, IDAT, myBuffer, myCount);
+                myCount = 0;
+            }
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+            int tmpOffset = offset;
+            int tmpRemaining = length;
+            while (tmpRemaining > 0) {
+                final int tmpLength = Math.min(tmpRemaining, myBuffer.length - myCount);
+                System.arraycopy(bytes, tmpOffset, myBuffer, myCount, tmpLength);
+                myCount += tmpLength;
+                tmpOffset += tmpLength;
+                tmpRemaining -= tmpLength;
+                if (myCount == myBuffer.length) {
+                    this.flush();
+                }
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            myBuffer[myCount++] = (byte) b;
+            if (myCount == myBuffer.length) {
+                this.flush();
+            }
+        }
+
+    }
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_PALETTE = 256;
+    private static final byte[] PLTE = "PLTE".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+    private static final byte[] TRNS = "tRNS".getBytes(StandardCharsets.US_ASCII);
+
+    static void chunk(final OutputStream output, final byte[] type, final byte[] data, final int length) throws IOException {
+
+        final CRC32 tmpCRC = new CRC32();
+        tmpCRC.update(type);
+        tmpCRC.update(data, 0, length);
+
+        PngEncoder.writeInt(output, length);
+        output.write(type);
+        output.write(data, 0, length);
+        PngEncoder.writeInt(output, (int) tmpCRC.getValue());
+    }
+
+    /**
+     * @return The distinct colours, in order of first appearance, or null if there are more than 256
+     */
+    static int[] palette(final int[] argb) {
+
+        // Open addressing hash set, 1024 slots for at most 256 colours
+        final int[] tmpSlots = new int[4 * MAX_PALETTE];
+        final boolean[] tmpUsed = new boolean[tmpSlots.length];
+        final int[] retVal = new int[MAX_PALETTE];
+        int tmpCount = 0;
+
+        int tmpLast = 0;
+        boolean tmpAny = false;
+        for (final int tmpColour : argb) {
+            if (tmpAny && (tmpColour == tmpLast)) {
+                continue; // Long runs of the same colour are the norm
+            }
+            tmpAny = true;
+            tmpLast = tmpColour;
+            int tmpSlot = PngEncoder.slot(tmpColour, tmpSlots.length);
+            while (tmpUsed[tmpSlot] && (tmpSlots[tmpSlot] != tmpColour)) {
+                tmpSlot = (tmpSlot + 1) & (tmpSlots.length - 1);
+            }
+            if (!tmpUsed[tmpSlot]) {
+                if (tmpCount == MAX_PALETTE) {
+                    return null;
+                }
+                tmpUsed[tmpSlot] = true;
+                tmpSlots[tmpSlot] = tmpColour;
+                retVal[tmpCount++] = tmpColour;
+            }
+        }
+
+        return Arrays.copyOf(retVal, tmpCount);
+    }
+
+    private static int paeth(final int a, final int b, final int c) {
+        final int tmpP = (a + b) - c;
+        final int tmpA = Math.abs(tmpP - a);
+        final int tmpB = Math.abs(tmpP - b);
+        final int tmpC = Math.abs(tmpP - c);
+        if ((tmpA <= tmpB) && (tmpA <= tmpC)) {
+            return a;
+        } else if (tmpB <= tmpC) {
+            return b;
+        } else {
+            return c;
+        }
+    }
+
+    private static int slot(final int colour, final int length) {
+        return ((colour * 0x9E3779B9) >>> 16) & (length - 1);
+    }
+
+    private static void writeInt(final OutputStream output, final int value) throws IOException {
+        output.write(value >>> 24);
+        output.write(value >>> 16);
+        output.write(value >>> 8);
+        output.write(value);
+    }
+
+    private final PngParameters.Filter myFilter;
+    private final int myLevel;
+    private final boolean myPalette;
+
+    PngEncoder(final int level, final PngParameters.Filter filter, final boolean palette) {
+
+        super();
+
+        myLevel = level;
+        myFilter = filter;
+        myPalette = palette;
+    }
+
+    /**
+     * Writes the image. The output is not closed.
+     */
+    void write(final BufferedImage image, final OutputStream output) throws IOException {
+
+        final int tmpWidth = image.getWidth();
+        final int tmpHeight = image.getHeight();
+
+        final int[] tmpARGB;
+        if ((image.getType() == BufferedImage.TYPE_INT_ARGB) && (image.getRaster().getDataBuffer() instanceof DataBufferInt)
+                && (image.getRaster().getDataBuffer().getSize() == (tmpWidth * tmpHeight))) {
+            tmpARGB = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        } else {
+            tmpARGB = image.getRGB(0, 0, tmpWidth, tmpHeight, null, 0, tmpWidth);
+        }
+
+        boolean tmpAlpha = false;
+        for (int i = 0; !tmpAlpha && (i < tmpARGB.length); i++) {
+            tmpAlpha = (tmpARGB[i] >>> 24) != 0xFF;
+        }
+
+        final int[] tmpPalette = myPalette ? PngEncoder.palette(tmpARGB) : null;
+
+        final int tmpColourType;
+        final int tmpBitDepth;
+        final int tmpBytesPerPixel;
+        final int tmpRowLength;
+        if (tmpPalette != null) {
+            tmpColourType = 3;
+            tmpBitDepth = tmpPalette.length <= 2 ? 1 : tmpPalette.length <= 4 ? 2 : tmpPalette.length <= 16 ? 4 : 8;
+            tmpBytesPerPixel = 1;
+            tmpRowLength = ((tmpWidth * tmpBitDepth) + 7) / 8;
+        } else {
+            tmpColourType = tmpAlpha ? 6 : 2;
+            tmpBitDepth = 8;
+            tmpBytesPerPixel = tmpAlpha ? 4 : 3;
+            tmpRowLength = tmpWidth * tmpBytesPerPixel;
+        }
+
+        output.write(SIGNATURE);
+
+        final byte[] tmpHeader = new byte[13];
+        tmpHeader[0] = (byte) (tmpWidth >>> 24);
+        tmpHeader[1] = (byte) (tmpWidth >>> 16);
+        tmpHeader[2] = (byte) (tmpWidth >>> 8);
+        tmpHeader[3] = (byte) tmpWidth;
+        tmpHeader[4] = (byte) (tmpHeight >>> 24);
+        tmpHeader[5] = (byte) (tmpHeight >>> 16);
+        tmpHeader[6] = (byte) (tmpHeight >>> 8);
+        tmpHeader[7] = (byte) tmpHeight;
+        tmpHeader[8] = (byte) tmpBitDepth;
+        tmpHeader[9] = (byte) tmpColourType;
+        PngEncoder.chunk(output, IHDR, tmpHeader, tmpHeader.length);
+
+        final int[] tmpIndex = tmpPalette != null ? new int[4 * MAX_PALETTE] : null;
+        final int[] tmpIndexColour = tmpPalette != null ? new int[tmpIndex.length] : null;
+        if (tmpPalette != null) {
+
+            final byte[] tmpRGB = new byte[3 * tmpPalette.length];
+            final byte[] tmpTransparency = new byte[tmpPalette.length];
+            int tmpTransparent = 0;
+            Arrays.fill(tmpIndex, -1);
+            for (int p = 0; p < tmpPalette.length; p++) {
+                final int tmpColour = tmpPalette[p];
+                tmpRGB[3 * p] = (byte) (tmpColour >>> 16);
+                tmpRGB[(3 * p) + 1] = (byte) (tmpColour >>> 8);
+                tmpRGB[(3 * p) + 2] = (byte) tmpColour;
+                tmpTransparency[p] = (byte) (tmpColour >>> 24);
+                if ((tmpColour >>> 24) != 0xFF) {
+                    tmpTransparent = p + 1;
+                }
+                int tmpSlot = PngEncoder.slot(tmpColour, tmpIndex.length);
+                while (tmpIndex[tmpSlot] >= 0) {
+                    tmpSlot = (tmpSlot + 1) & (tmpIndex.length - 1);
+                }
+                tmpIndex[tmpSlot] = p;
+                tmpIndexColour[tmpSlot] = tmpColour;
+            }
+            PngEncoder.chunk(output, PLTE, tmpRGB, tmpRGB.length);
+            if (tmpTransparent > 0) {
+                // Trailing opaque entries may be omitted
+                PngEncoder.chunk(output, TRNS, tmpTransparency, tmpTransparent);
+            }
+        }
+
+        // Filtering paletted images rarely pays off
+        final PngParameters.Filter tmpFilter = (tmpPalette != null) && (myFilter == PngParameters.Filter.ADAPTIVE) ? PngParameters.Filter.NONE : myFilter;
+
+        final Deflater tmpDeflater = new Deflater(myLevel);
+        if (tmpFilter != PngParameters.Filter.NONE) {
+            tmpDeflater.setStrategy(Deflater.FILTERED);
+        }
+
+        try {
+
+            final ChunkOutputStream tmpChunks = new ChunkOutputStream(output, CHUNK_SIZE);
+            final DeflaterOutputStream tmpDeflated = new DeflaterOutputStream(tmpChunks, tmpDeflater, CHUNK_SIZE);
+
+            byte[] tmpPrevious = new byte[tmpRowLength];
+            byte[] tmpCurrent = new byte[tmpRowLength];
+            final byte[] tmpFiltered = new byte[tmpRowLength + 1];
+            final byte[] tmpBest = tmpFilter == PngParameters.Filter.ADAPTIVE ? new byte[tmpRowLength + 1] : null;
+
+            for (int y = 0; y < tmpHeight; y++) {
+
+                final int tmpRow = y * tmpWidth;
+
+                if (tmpPalette != null) {
+                    Arrays.fill(tmpCurrent, (byte) 0);
+                    final int tmpPerByte = 8 / tmpBitDepth;
+                    int tmpLastColour = 0;
+                    int tmpLastIndex = -1;
+                    for (int x = 0; x < tmpWidth; x++) {
+                        final int tmpColour = tmpARGB[tmpRow + x];
+                        if ((tmpLastIndex < 0) || (tmpColour != tmpLastColour)) {
+                            int tmpSlot = PngEncoder.slot(tmpColour, tmpIndex.length);
+                            while (tmpIndexColour[tmpSlot] != tmpColour) {
+                                tmpSlot = (tmpSlot + 1) & (tmpIndex.length - 1);
+                            }
+                            tmpLastIndex = tmpIndex[tmpSlot];
+                            tmpLastColour = tmpColour;
+                        }
+                        final int tmpShift = 8 - (((x % tmpPerByte) + 1) * tmpBitDepth);
+                        tmpCurrent[x / tmpPerByte] |= (byte) (tmpLastIndex << tmpShift);
+                    }
+                } else {
+                    int i = 0;
+                    for (int x = 0; x < tmpWidth; x++) {
+                        final int tmpColour = tmpARGB[tmpRow + x];
+                        tmpCurrent[i++] = (byte) (tmpColour >>> 16);
+                        tmpCurrent[i++] = (byte) (tmpColour >>> 8);
+                        tmpCurrent[i++] = (byte) tmpColour;
+                        if (tmpAlpha) {
+                            tmpCurrent[i++] = (byte) (tmpColour >>> 24);
+                        }
+                    }
+                }
+
+                if (tmpFilter == PngParameters.Filter.ADAPTIVE) {
+                    // The filter with the smallest sum of absolute (signed) differences
+                    long tmpBestSum = Long.MAX_VALUE;
+                    for (final PngParameters.Filter tmpCandidate : PngParameters.Filter.values()) {
+                        if (tmpCandidate != PngParameters.Filter.ADAPTIVE) {
+                            final long tmpSum = this.filter(tmpCandidate, tmpCurrent, tmpPrevious, tmpBytesPerPixel, tmpFiltered);
+                            if (tmpSum < tmpBestSum) {
+                                tmpBestSum = tmpSum;
+                                System.arraycopy(tmpFiltered, 0, tmpBest, 0, tmpFiltered.length);
+                            }
+                        }
+                    }
+                    tmpDeflated.write(tmpBest);
+                } else {
+                    this.filter(tmpFilter, tmpCurrent, tmpPrevious, tmpBytesPerPixel, tmpFiltered);
+                    tmpDeflated.write(tmpFiltered);
+                }
+
+                final byte[] tmpSwap = tmpPrevious;
+                tmpPrevious = tmpCurrent;
+                tmpCurrent = tmpSwap;
+            }
+
+            tmpDeflated.finish();
+            tmpChunks.flush();
+
+        } finally {
+            tmpDeflater.end();
+        }
+
+        PngEncoder.chunk(output, IEND, new byte[0], 0);
+    }
+
+    /**
+     * @return The sum of the absolute values of the filtered bytes (as signed)
+     */
+    private long filter(final PngParameters.Filter filter, final byte[] current, final byte[] previous, final int bytesPerPixel, final byte[] filtered) {
+
+        filtered[0] = (byte) filter.ordinal();
+
+        long retVal = 0L;
+        for (int i = 0; i < current.length; i++) {
+
+            final int tmpX = current[i] & 0xFF;
+            final int tmpA = i >= bytesPerPixel ? current[i - bytesPerPixel] & 0xFF : 0;
+            final int tmpB = previous[i] & 0xFF;
+            final int tmpC = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xFF : 0;
+
+            final int tmpPredicted;
+            switch (filter) {
+            case SUB:
+                tmpPredicted = tmpA;
+                break;
+            case UP:
+                tmpPredicted = tmpB;
+                break;
+            case AVERAGE:
+                tmpPredicted = (tmpA + tmpB) >>> 1;
+                break;
+            case PAETH:
+                tmpPredicted = PngEncoder.paeth(tmpA, tmpB, tmpC);
+                break;
+            default:
+                tmpPredicted = 0;
+                break;
+            }
+
+            final byte tmpByte = (byte) (tmpX - tmpPredicted);
+            filtered[i + 1] = tmpByte;
+            retVal += Math.abs(tmpByte);
+        }
+
+        return retVal;
+    }
+
+}
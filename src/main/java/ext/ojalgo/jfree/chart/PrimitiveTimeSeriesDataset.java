@@ -0,0 +1,906 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.xy.AbstractIntervalXYDataset;
+import org.jfree.data.xy.XYDomainInfo;
+import org.jfree.data.xy.XYRangeInfo;
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.random.ContinuousDistribution;
+import org.ojalgo.random.Distribution;
+import org.ojalgo.type.CalendarDate;
+import org.ojalgo.type.CalendarDateUnit;
+
+import ext.ojalgo.jfree.chart.AbstractSeriesData.ContinuousDistributionWrapper;
+import ext.ojalgo.jfree.chart.AbstractSeriesData.NumberWithRange;
+
+/**
+ * A columnar time series {@link org.jfree.data.xy.IntervalXYDataset}. The x-values are epoch millis
+ * stored either explicitly as a long[], or (for series sampled at a fixed resolution) as just a start
+ * instant and a {@link CalendarDateUnit} step. The y-values are stored in a double[].
+ * <p>
+ * Values that carry a range ({@link NumberWithRange}, {@link ContinuousDistributionWrapper} or
+ * {@link ContinuousDistribution}) are resolved, once, into low/high double[] columns - the start/end
+ * y-values. Distribution quantiles are only recalculated when the confidence changes, never while drawing.
+ * <p>
+ * Live series ({@link #addLiveSeries(String, int, long, boolean)}) are bounded ring buffers that points are
+ * appended to. Appending does not fire change events - call {@link #flush()} once a batch of points has
+ * been appended. The min/max of each live series is maintained as points are appended and evicted, so the
+ * axes ranges can be found without scanning the history.
+ */
+public final class PrimitiveTimeSeriesDataset extends AbstractIntervalXYDataset implements DomainInfo, RangeInfo, XYDomainInfo, XYRangeInfo {
+
+    /**
+     * Series backed by fixed (not growing) arrays
+     */
+    static abstract class ArraySeries extends Series {
+
+        final int count;
+        final Ranges ranges;
+        final double[] values;
+
+        private volatile MinMaxPyramid myPyramid = null;
+
+        ArraySeries(final String key, final double[] values, final Ranges ranges, final int count) {
+
+            super(key);
+
+            this.values = values;
+            this.ranges = ranges;
+            this.count = count;
+        }
+
+        @Override
+        int count() {
+            return count;
+        }
+
+        @Override
+        void findRange(final double from, final double to, final boolean includeInterval, final double[] bounds) {
+
+            final int tmpFirst = DownsampledXYDataset.search(this::millis, count, from, false);
+            final int tmpLimit = DownsampledXYDataset.search(this::millis, count, to, true);
+
+            if ((tmpLimit - tmpFirst) < PYRAMID_THRESHOLD) {
+                super.findRange(from, to, includeInterval, bounds);
+                return;
+            }
+
+            final MinMaxPyramid.Extent tmpExtent = new MinMaxPyramid.Extent();
+            this.pyramid().query(tmpFirst, tmpLimit, tmpExtent);
+
+            final double tmpLow = includeInterval ? tmpExtent.low : this.value(tmpExtent.minIndex);
+            final double tmpHigh = includeInterval ? tmpExtent.high : this.value(tmpExtent.maxIndex);
+            if (!Double.isNaN(tmpLow) && !Double.isInfinite(tmpLow)) {
+                bounds[0] = Math.min(bounds[0], tmpLow);
+            }
+            if (!Double.isNaN(tmpHigh) && !Double.isInfinite(tmpHigh)) {
+                bounds[1] = Math.max(bounds[1], tmpHigh);
+            }
+        }
+
+        @Override
+        double high(final int index) {
+            return ranges != null ? ranges.high[index] : values[index];
+        }
+
+        @Override
+        double low(final int index) {
+            return ranges != null ? ranges.low[index] : values[index];
+        }
+
+        @Override
+        MinMaxPyramid pyramid() {
+            MinMaxPyramid retVal = myPyramid;
+            if (retVal == null) {
+                myPyramid = retVal = new MinMaxPyramid(this);
+            }
+            return retVal;
+        }
+
+        @Override
+        void update(final double confidence) {
+            if (ranges != null) {
+                ranges.update(confidence);
+                myPyramid = null;
+            }
+        }
+
+        @Override
+        double value(final int index) {
+            return values[index];
+        }
+
+    }
+
+    static final class ExplicitSeries extends ArraySeries {
+
+        private final long[] myMillis;
+
+        ExplicitSeries(final String key, final long[] millis, final double[] values, final Ranges ranges, final int count) {
+            super(key, values, ranges, count);
+            myMillis = millis;
+        }
+
+        @Override
+        long millis(final int index) {
+            return myMillis[index];
+        }
+
+    }
+
+    /**
+     * A monotonic deque of item sequence numbers - the front is always the min (or max) of the items
+     * currently in the ring buffer. Amortised O(1) per appended/evicted item.
+     */
+    static final class Extreme {
+
+        private final long[] myDeque;
+        private int myHead = 0;
+        private final boolean myMaximum;
+        private int mySize = 0;
+        private final double[] myValues;
+
+        Extreme(final double[] values, final boolean maximum) {
+
+            super();
+
+            myValues = values;
+            myMaximum = maximum;
+            myDeque = new long[values.length];
+        }
+
+        void evict(final long sequence) {
+            if ((mySize > 0) && (myDeque[myHead] == sequence)) {
+                myHead = (myHead + 1) % myDeque.length;
+                mySize--;
+            }
+        }
+
+        double get() {
+            return mySize > 0 ? myValues[(int) (myDeque[myHead] % myValues.length)] : Double.NaN;
+        }
+
+        void push(final long sequence) {
+
+            final double tmpValue = myValues[(int) (sequence % myValues.length)];
+            if (Double.isNaN(tmpValue)) {
+                return;
+            }
+
+            while (mySize > 0) {
+                final double tmpLast = myValues[(int) (myDeque[(myHead + mySize - 1) % myDeque.length] % myValues.length)];
+                if (myMaximum ? (tmpLast <= tmpValue) : (tmpLast >= tmpValue)) {
+                    mySize--;
+                } else {
+                    break;
+                }
+            }
+
+            myDeque[(myHead + mySize) % myDeque.length] = sequence;
+            mySize++;
+        }
+
+    }
+
+    /**
+     * A bounded ring buffer. Item i has sequence number first + i and is stored at position sequence %
+     * capacity. When the buffer is full, or the oldest items fall outside the (optional) time window, the
+     * oldest items are evicted.
+     */
+    static final class LiveSeries extends Series {
+
+        private final int myCapacity;
+        private int myCount = 0;
+        private long myFirst = 0L;
+        private final double[] myHigh;
+        private final double[] myLow;
+        private final Extreme myMaximum;
+        private final long[] myMillis;
+        private final Extreme myMinimum;
+        private final double[] myValues;
+        private final long myWindow;
+
+        LiveSeries(final String key, final int capacity, final long window, final boolean ranged) {
+
+            super(key);
+
+            if (capacity < 1) {
+                throw new IllegalArgumentException("The capacity must be at least 1!");
+            }
+
+            myCapacity = capacity;
+            myWindow = window;
+
+            myMillis = new long[capacity];
+            myValues = new double[capacity];
+            myLow = ranged ? new double[capacity] : myValues;
+            myHigh = ranged ? new double[capacity] : myValues;
+
+            myMinimum = new Extreme(myLow, false);
+            myMaximum = new Extreme(myHigh, true);
+        }
+
+        @Override
+        int count() {
+            return myCount;
+        }
+
+        @Override
+        void findRange(final double from, final double to, final boolean includeInterval, final double[] bounds) {
+            if ((myCount > 0) && (includeInterval || (myLow == myValues)) && (from <= this.millis(0)) && (to >= this.millis(myCount - 1))) {
+                final double tmpMin = myMinimum.get();
+                final double tmpMax = myMaximum.get();
+                if (!Double.isNaN(tmpMin)) {
+                    bounds[0] = Math.min(bounds[0], tmpMin);
+                    bounds[1] = Math.max(bounds[1], tmpMax);
+                }
+            } else {
+                super.findRange(from, to, includeInterval, bounds);
+            }
+        }
+
+        @Override
+        double high(final int index) {
+            return myHigh[this.position(index)];
+        }
+
+        @Override
+        double low(final int index) {
+            return myLow[this.position(index)];
+        }
+
+        @Override
+        long millis(final int index) {
+            return myMillis[this.position(index)];
+        }
+
+        @Override
+        double value(final int index) {
+            return myValues[this.position(index)];
+        }
+
+        void append(final long millis, final double low, final double value, final double high) {
+
+            if ((myCount > 0) && (millis < this.millis(myCount - 1))) {
+                throw new IllegalArgumentException("Must append in ascending time order!");
+            }
+
+            if (myCount == myCapacity) {
+                this.evict();
+            }
+
+            final long tmpSequence = myFirst + myCount;
+            final int tmpPosition = (int) (tmpSequence % myCapacity);
+            myMillis[tmpPosition] = millis;
+            myValues[tmpPosition] = value;
+            if (myLow != myValues) {
+                myLow[tmpPosition] = low;
+                myHigh[tmpPosition] = high;
+            }
+            myCount++;
+
+            myMinimum.push(tmpSequence);
+            myMaximum.push(tmpSequence);
+
+            if (myWindow > 0L) {
+                final long tmpOldest = millis - myWindow;
+                while ((myCount > 1) && (this.millis(0) < tmpOldest)) {
+                    this.evict();
+                }
+            }
+        }
+
+        private void evict() {
+            myMinimum.evict(myFirst);
+            myMaximum.evict(myFirst);
+            myFirst++;
+            myCount--;
+        }
+
+        private int position(final int index) {
+            return (int) ((myFirst + index) % myCapacity);
+        }
+
+    }
+
+    /**
+     * Series backed by (memory mapped) {@link MappedSeriesFile} columns
+     */
+    static final class MappedSeries extends Series {
+
+        private final MappedSeriesFile myFile;
+        private final MappedSeriesFile.Column myHigh;
+        private final MappedSeriesFile.Column myLow;
+        private final MappedSeriesFile.Column myMillis;
+        private final MappedSeriesFile.Column myValues;
+
+        MappedSeries(final String key, final MappedSeriesFile file, final MappedSeriesFile.Column millis, final MappedSeriesFile.Column low,
+                final MappedSeriesFile.Column values, final MappedSeriesFile.Column high) {
+
+            super(key);
+
+            if (!millis.isAscending()) {
+                throw new IllegalArgumentException("The millis column must be in ascending order!");
+            }
+
+            myFile = file;
+            myMillis = millis;
+            myLow = low;
+            myValues = values;
+            myHigh = high;
+        }
+
+        @Override
+        int count() {
+            return myFile.getRowCount();
+        }
+
+        @Override
+        void fingerprint(final Fingerprint fingerprint) {
+            myFile.fingerprint(fingerprint);
+            fingerprint.add(myMillis.getName()).add(myValues.getName());
+            fingerprint.add(myLow != null ? myLow.getName() : null).add(myHigh != null ? myHigh.getName() : null);
+        }
+
+        @Override
+        double high(final int index) {
+            return myHigh != null ? myHigh.doubleValue(index) : myValues.doubleValue(index);
+        }
+
+        @Override
+        double low(final int index) {
+            return myLow != null ? myLow.doubleValue(index) : myValues.doubleValue(index);
+        }
+
+        @Override
+        long millis(final int index) {
+            return myMillis.longValue(index);
+        }
+
+        @Override
+        double value(final int index) {
+            return myValues.doubleValue(index);
+        }
+
+    }
+
+    static final class RegularSeries extends ArraySeries {
+
+        private final long myStart;
+        private final long myStepMillis;
+
+        RegularSeries(final String key, final long start, final CalendarDateUnit step, final double[] values, final Ranges ranges, final int count) {
+            super(key, values, ranges, count);
+            myStart = start;
+            myStepMillis = step.toDurationInMillis();
+        }
+
+        @Override
+        long millis(final int index) {
+            return myStart + (index * myStepMillis);
+        }
+
+    }
+
+    /**
+     * The low/high columns of a series. Items that are distributions keep a reference to the distribution so
+     * that the quantiles can be recalculated if the confidence changes.
+     */
+    static final class Ranges {
+
+        /**
+         * Resolves an array of (possibly) ranged values. Items that are not ranged get low = high = value.
+         */
+        static Ranges of(final Object[] ranged, final double[] values, final double confidence) {
+
+            final int tmpCount = ranged.length;
+
+            final double[] tmpLow = new double[tmpCount];
+            final double[] tmpHigh = new double[tmpCount];
+            ContinuousDistribution[] tmpDistributions = null;
+
+            for (int i = 0; i < tmpCount; i++) {
+                final Object tmpValue = ranged[i];
+                if (tmpValue instanceof NumberWithRange) {
+                    tmpLow[i] = ((NumberWithRange) tmpValue).low;
+                    tmpHigh[i] = ((NumberWithRange) tmpValue).high;
+                } else if (tmpValue instanceof ContinuousDistributionWrapper) {
+                    if (tmpDistributions == null) {
+                        tmpDistributions = new ContinuousDistribution[tmpCount];
+                    }
+                    tmpDistributions[i] = ((ContinuousDistributionWrapper) tmpValue).getDistribution();
+                } else if (tmpValue instanceof ContinuousDistribution) {
+                    if (tmpDistributions == null) {
+                        tmpDistributions = new ContinuousDistribution[tmpCount];
+                    }
+                    tmpDistributions[i] = (ContinuousDistribution) tmpValue;
+                } else {
+                    tmpLow[i] = values[i];
+                    tmpHigh[i] = values[i];
+                }
+            }
+
+            final Ranges retVal = new Ranges(tmpLow, tmpHigh, tmpDistributions);
+            retVal.update(confidence);
+            return retVal;
+        }
+
+        final ContinuousDistribution[] distributions;
+        final double[] high;
+        final double[] low;
+
+        Ranges(final double[] low, final double[] high, final ContinuousDistribution[] distributions) {
+
+            super();
+
+            this.low = low;
+            this.high = high;
+            this.distributions = distributions;
+        }
+
+        void update(final double confidence) {
+            if (distributions != null) {
+                final double tmpLowerProbability = (PrimitiveMath.ONE - confidence) / PrimitiveMath.TWO;
+                final double tmpUpperProbability = PrimitiveMath.ONE - tmpLowerProbability;
+                for (int i = 0; i < distributions.length; i++) {
+                    final ContinuousDistribution tmpDistribution = distributions[i];
+                    if (tmpDistribution != null) {
+                        low[i] = tmpDistribution.getQuantile(tmpLowerProbability);
+                        high[i] = tmpDistribution.getQuantile(tmpUpperProbability);
+                    }
+                }
+            }
+        }
+
+    }
+
+    static abstract class Series {
+
+        final String key;
+
+        Series(final String key) {
+
+            super();
+
+            this.key = key;
+        }
+
+        abstract int count();
+
+        /**
+         * Expands bounds ({min, max}) to include the y-values of the items with x-values in [from, to].
+         */
+        void findRange(final double from, final double to, final boolean includeInterval, final double[] bounds) {
+
+            final int tmpCount = this.count();
+
+            for (int i = DownsampledXYDataset.search(this::millis, tmpCount, from, false); (i < tmpCount) && (this.millis(i) <= to); i++) {
+                final double tmpLow = includeInterval ? this.low(i) : this.value(i);
+                final double tmpHigh = includeInterval ? this.high(i) : this.value(i);
+                if (!Double.isNaN(tmpLow)) {
+                    bounds[0] = Math.min(bounds[0], tmpLow);
+                }
+                if (!Double.isNaN(tmpHigh)) {
+                    bounds[1] = Math.max(bounds[1], tmpHigh);
+                }
+            }
+        }
+
+        void fingerprint(final Fingerprint fingerprint) {
+            final int tmpCount = this.count();
+            fingerprint.add(key).add(tmpCount);
+            for (int i = 0; i < tmpCount; i++) {
+                fingerprint.add(this.millis(i)).add(this.low(i)).add(this.value(i)).add(this.high(i));
+            }
+        }
+
+        abstract double high(int index);
+
+        abstract double low(int index);
+
+        abstract long millis(int index);
+
+        /**
+         * @return The min/max index of the items, or null if this series does not have one
+         */
+        MinMaxPyramid pyramid() {
+            return null;
+        }
+
+        void update(final double confidence) {
+            // Only some series have ranges that depend on the confidence
+        }
+
+        abstract double value(int index);
+
+    }
+
+    /**
+     * Item ranges at least this long use the series' {@link MinMaxPyramid}
+     */
+    static final int PYRAMID_THRESHOLD = 1024;
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The y-value a single (possibly ranged) value is plotted at.
+     */
+    static double value(final Object value) {
+        if (value instanceof NumberWithRange) {
+            return ((NumberWithRange) value).value;
+        } else if (value instanceof ContinuousDistributionWrapper) {
+            return Double.NaN;
+        } else if (value instanceof Distribution) {
+            return ((Distribution) value).getExpected();
+        } else if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * @return true if the millis are evenly spaced at the given resolution (and there are at least 2 of
+     *         them)
+     */
+    static boolean isRegular(final long[] millis, final CalendarDateUnit resolution) {
+
+        if ((resolution == null) || (millis.length < 2)) {
+            return false;
+        }
+
+        final long tmpStep = resolution.toDurationInMillis();
+        for (int i = 1; i < millis.length; i++) {
+            if ((millis[i] - millis[i - 1]) != tmpStep) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static boolean isRanged(final Object value) {
+        return (value instanceof NumberWithRange) || (value instanceof ContinuousDistributionWrapper) || (value instanceof ContinuousDistribution);
+    }
+
+    /**
+     * The low/high arrays must be of the same length as the values
+     */
+    private static void checkLengths(final double[] low, final double[] values, final double[] high) {
+
+        ProgrammingError.throwIfNull(low, values, high);
+
+        if ((low.length != values.length) || (high.length != values.length)) {
+            throw new IllegalArgumentException("The low, values and high arrays must be of the same length!");
+        }
+    }
+
+    private double myConfidence = 0.68;
+    private boolean myPending = false;
+    private final ArrayList<Series> mySeries = new ArrayList<>();
+
+    public PrimitiveTimeSeriesDataset() {
+        super();
+    }
+
+    /**
+     * The millis must be in ascending order. The arrays are not copied - the dataset takes ownership of them.
+     */
+    public void addSeries(final String key, final long[] millis, final double[] values) {
+        this.addSeries(new ExplicitSeries(key, millis, values, null, Math.min(millis.length, values.length)));
+    }
+
+    /**
+     * Same as {@link #addSeries(String, long[], double[])} but with low/high (start/end y) values.
+     */
+    public void addSeries(final String key, final long[] millis, final double[] low, final double[] values, final double[] high) {
+        PrimitiveTimeSeriesDataset.checkLengths(low, values, high);
+        this.addSeries(new ExplicitSeries(key, millis, values, new Ranges(low, high, null), Math.min(millis.length, values.length)));
+    }
+
+    /**
+     * A series sampled at a fixed resolution - only the start, the step and the values are stored. The array
+     * is not copied - the dataset takes ownership of it.
+     */
+    public void addSeries(final String key, final CalendarDate start, final CalendarDateUnit step, final double[] values) {
+        this.addSeries(new RegularSeries(key, start.millis, step, values, null, values.length));
+    }
+
+    /**
+     * Same as {@link #addSeries(String, CalendarDate, CalendarDateUnit, double[])} but with low/high (start/end
+     * y) values.
+     */
+    public void addSeries(final String key, final CalendarDate start, final CalendarDateUnit step, final double[] low, final double[] values,
+            final double[] high) {
+        PrimitiveTimeSeriesDataset.checkLengths(low, values, high);
+        this.addSeries(new RegularSeries(key, start.millis, step, values, new Ranges(low, high, null), values.length));
+    }
+
+    /**
+     * A series read, zero-copy, from memory mapped columns of a {@link MappedSeriesFile}.
+     *
+     * @param millis The name of the epoch millis column - must be in ascending order
+     * @param values The name of the y-values column
+     */
+    public void addSeries(final String key, final MappedSeriesFile file, final String millis, final String values) {
+        this.addSeries(new MappedSeries(key, file, file.getColumn(millis), null, file.getColumn(values), null));
+    }
+
+    /**
+     * Same as {@link #addSeries(String, MappedSeriesFile, String, String)} but with low/high (start/end y)
+     * columns.
+     */
+    public void addSeries(final String key, final MappedSeriesFile file, final String millis, final String low, final String values,
+            final String high) {
+        this.addSeries(new MappedSeries(key, file, file.getColumn(millis), file.getColumn(low), file.getColumn(values), file.getColumn(high)));
+    }
+
+    /**
+     * An empty series that points can be appended to.
+     *
+     * @param capacity The max number of points retained - when full the oldest are evicted
+     * @param window Points older than this many millis, relative to the newest point, are evicted. 0 means
+     *        no time window.
+     * @param ranged Whether the points have low/high (start/end y) values or not
+     */
+    public void addLiveSeries(final String key, final int capacity, final long window, final boolean ranged) {
+        this.addSeries(new LiveSeries(key, capacity, window, ranged));
+    }
+
+    /**
+     * Append a point to a live series - O(1). Does not fire a change event. Not synchronised - append, flush
+     * and draw on the same thread.
+     *
+     * @see #flush()
+     */
+    public void append(final int series, final long millis, final double value) {
+        this.append(series, millis, value, value, value);
+    }
+
+    /**
+     * Same as {@link #append(int, long, double)} but with low/high (start/end y) values.
+     */
+    public void append(final int series, final long millis, final double low, final double value, final double high) {
+
+        final Series tmpSeries = mySeries.get(series);
+
+        if (!(tmpSeries instanceof LiveSeries)) {
+            throw new IllegalArgumentException("Not a live series: " + tmpSeries.key);
+        }
+
+        ((LiveSeries) tmpSeries).append(millis, low, value, high);
+        myPending = true;
+    }
+
+    /**
+     * Fires a single change event if anything was appended since the previous flush.
+     */
+    public void flush() {
+        if (myPending) {
+            myPending = false;
+            this.fireDatasetChanged();
+        }
+    }
+
+    public Range getDomainBounds(final boolean includeInterval) {
+        return this.getDomainBounds(null, includeInterval);
+    }
+
+    public Range getDomainBounds(final List visibleSeriesKeys, final boolean includeInterval) {
+
+        double tmpMin = Double.POSITIVE_INFINITY;
+        double tmpMax = Double.NEGATIVE_INFINITY;
+
+        for (final Series tmpSeries : mySeries) {
+            final int tmpCount = tmpSeries.count();
+            if ((tmpCount > 0) && ((visibleSeriesKeys == null) || visibleSeriesKeys.contains(tmpSeries.key))) {
+                tmpMin = Math.min(tmpMin, tmpSeries.millis(0));
+                tmpMax = Math.max(tmpMax, tmpSeries.millis(tmpCount - 1));
+            }
+        }
+
+        return tmpMin <= tmpMax ? new Range(tmpMin, tmpMax) : null;
+    }
+
+    public double getDomainLowerBound(final boolean includeInterval) {
+        final Range tmpRange = this.getDomainBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getLowerBound() : Double.NaN;
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    public double getDomainUpperBound(final boolean includeInterval) {
+        final Range tmpRange = this.getDomainBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getUpperBound() : Double.NaN;
+    }
+
+    public Number getEndX(final int series, final int item) {
+        return this.getX(series, item);
+    }
+
+    @Override
+    public double getEndXValue(final int series, final int item) {
+        return this.getXValue(series, item);
+    }
+
+    public Number getEndY(final int series, final int item) {
+        return this.getEndYValue(series, item);
+    }
+
+    @Override
+    public double getEndYValue(final int series, final int item) {
+        return mySeries.get(series).high(item);
+    }
+
+    public int getItemCount(final int series) {
+        return mySeries.get(series).count();
+    }
+
+    public Range getRangeBounds(final boolean includeInterval) {
+        return this.getRangeBounds(null, null, includeInterval);
+    }
+
+    public Range getRangeBounds(final List visibleSeriesKeys, final Range xRange, final boolean includeInterval) {
+
+        final double tmpFrom = xRange != null ? xRange.getLowerBound() : Double.NEGATIVE_INFINITY;
+        final double tmpTo = xRange != null ? xRange.getUpperBound() : Double.POSITIVE_INFINITY;
+
+        final double[] tmpBounds = { Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (final Series tmpSeries : mySeries) {
+            if ((visibleSeriesKeys == null) || visibleSeriesKeys.contains(tmpSeries.key)) {
+                tmpSeries.findRange(tmpFrom, tmpTo, includeInterval, tmpBounds);
+            }
+        }
+
+        return tmpBounds[0] <= tmpBounds[1] ? new Range(tmpBounds[0], tmpBounds[1]) : null;
+    }
+
+    public double getRangeLowerBound(final boolean includeInterval) {
+        final Range tmpRange = this.getRangeBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getLowerBound() : Double.NaN;
+    }
+
+    public double getRangeUpperBound(final boolean includeInterval) {
+        final Range tmpRange = this.getRangeBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getUpperBound() : Double.NaN;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return mySeries.size();
+    }
+
+    @Override
+    public Comparable<?> getSeriesKey(final int series) {
+        return mySeries.get(series).key;
+    }
+
+    public Number getStartX(final int series, final int item) {
+        return this.getX(series, item);
+    }
+
+    @Override
+    public double getStartXValue(final int series, final int item) {
+        return this.getXValue(series, item);
+    }
+
+    public Number getStartY(final int series, final int item) {
+        return this.getStartYValue(series, item);
+    }
+
+    @Override
+    public double getStartYValue(final int series, final int item) {
+        return mySeries.get(series).low(item);
+    }
+
+    public Number getX(final int series, final int item) {
+        return mySeries.get(series).millis(item);
+    }
+
+    @Override
+    public double getXValue(final int series, final int item) {
+        return mySeries.get(series).millis(item);
+    }
+
+    public Number getY(final int series, final int item) {
+        return mySeries.get(series).value(item);
+    }
+
+    @Override
+    public double getYValue(final int series, final int item) {
+        return mySeries.get(series).value(item);
+    }
+
+    void addSeries(final Series series) {
+
+        ProgrammingError.throwIfNull(series.key);
+        this.checkKey(series.key);
+
+        mySeries.add(series);
+
+        this.fireDatasetChanged();
+    }
+
+    /**
+     * Adds all the series, in order, with a single change event.
+     */
+    void addSeries(final Collection<? extends Series> series) {
+
+        final HashSet<String> tmpKeys = new HashSet<>();
+        for (final Series tmpSeries : series) {
+            ProgrammingError.throwIfNull(tmpSeries.key);
+            this.checkKey(tmpSeries.key);
+            if (!tmpKeys.add(tmpSeries.key)) {
+                throw new IllegalArgumentException("Duplicate series key: " + tmpSeries.key);
+            }
+        }
+
+        mySeries.addAll(series);
+
+        this.fireDatasetChanged();
+    }
+
+    void fingerprint(final Fingerprint fingerprint) {
+        fingerprint.add(myConfidence).add(mySeries.size());
+        for (final Series tmpSeries : mySeries) {
+            tmpSeries.fingerprint(fingerprint);
+        }
+    }
+
+    double getConfidence() {
+        return myConfidence;
+    }
+
+    Series getSeries(final int series) {
+        return mySeries.get(series);
+    }
+
+    void setConfidence(final double confidence) {
+        if (confidence != myConfidence) {
+            myConfidence = confidence;
+            for (final Series tmpSeries : mySeries) {
+                tmpSeries.update(confidence);
+            }
+            this.fireDatasetChanged();
+        }
+    }
+
+    private void checkKey(final String key) {
+        if (this.indexOf(key) >= 0) {
+            throw new IllegalArgumentException("This dataset already contains a series with the key " + key);
+        }
+    }
+
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.xy.AbstractIntervalXYDataset;
+import org.jfree.data.xy.TableXYDataset;
+import org.jfree.data.xy.XYDomainInfo;
+import org.jfree.data.xy.XYRangeInfo;
+import org.ojalgo.ProgrammingError;
+
+/**
+ * A columnar {@link org.jfree.data.xy.XYDataset} storing each series as a pair of primitive double[]
+ * columns. The arrays passed to {@link #addSeries(String, double[], double[])} are not copied - the dataset
+ * takes ownership of them. Series may also be read directly from the columns of a {@link MappedSeriesFile}.
+ * <p>
+ * The {@link TableXYDataset} contract (all series share the same x-values) is only fulfilled when
+ * {@link #isAligned()} returns true.
+ * <p>
+ * The x- and y-bounds of each series are calculated once, the first time they're needed, so axis auto-ranging
+ * does not iterate over all items each time the chart is drawn. Items with a NaN x-value are ignored.
+ */
+public final class PrimitiveXYDataset extends AbstractIntervalXYDataset implements TableXYDataset, DomainInfo, RangeInfo, XYDomainInfo, XYRangeInfo {
+
+    static final class ArraySeries extends Series {
+
+        final double[] x;
+        final double[] y;
+
+        ArraySeries(final String key, final double[] x, final double[] y, final int count) {
+
+            super(key, count, PrimitiveXYDataset.isAscending(x, count));
+
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        void fingerprint(final Fingerprint fingerprint) {
+            fingerprint.add(key).add(x, count).add(y, count);
+        }
+
+        @Override
+        boolean sharesX(final Series other) {
+            return (other instanceof ArraySeries) && (((ArraySeries) other).x == x);
+        }
+
+        @Override
+        double x(final int item) {
+            return x[item];
+        }
+
+        @Override
+        double y(final int item) {
+            return y[item];
+        }
+
+    }
+
+    /**
+     * Series backed by (memory mapped) {@link MappedSeriesFile} columns
+     */
+    static final class MappedSeries extends Series {
+
+        private final MappedSeriesFile myFile;
+        private final MappedSeriesFile.Column myX;
+        private final MappedSeriesFile.Column myY;
+
+        MappedSeries(final String key, final MappedSeriesFile file, final MappedSeriesFile.Column x, final MappedSeriesFile.Column y) {
+
+            super(key, file.getRowCount(), x.isAscending());
+
+            myFile = file;
+            myX = x;
+            myY = y;
+        }
+
+        @Override
+        void fingerprint(final Fingerprint fingerprint) {
+            myFile.fingerprint(fingerprint);
+            fingerprint.add(key).add(myX.getName()).add(myY.getName());
+        }
+
+        @Override
+        boolean sharesX(final Series other) {
+            return (other instanceof MappedSeries) && (((MappedSeries) other).myX == myX);
+        }
+
+        @Override
+        double x(final int item) {
+            return myX.doubleValue(item);
+        }
+
+        @Override
+        double y(final int item) {
+            return myY.doubleValue(item);
+        }
+
+    }
+
+    static abstract class Series {
+
+        final boolean ascending;
+        final int count;
+        final String key;
+
+        private volatile double[] myBounds = null;
+
+        Series(final String key, final int count, final boolean ascending) {
+
+            super();
+
+            this.key = key;
+            this.count = count;
+            this.ascending = ascending;
+        }
+
+        /**
+         * @return {min x, max x, min y, max y} - calculated once. Empty (min &gt; max) if there are no such
+         *         values.
+         */
+        double[] bounds() {
+            double[] retVal = myBounds;
+            if (retVal == null) {
+                retVal = new double[] { Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+                for (int i = 0; i < count; i++) {
+                    final double tmpX = this.x(i);
+                    if (!Double.isNaN(tmpX)) {
+                        retVal[0] = Math.min(retVal[0], tmpX);
+                        retVal[1] = Math.max(retVal[1], tmpX);
+                        final double tmpY = this.y(i);
+                        if (!Double.isNaN(tmpY)) {
+                            retVal[2] = Math.min(retVal[2], tmpY);
+                            retVal[3] = Math.max(retVal[3], tmpY);
+                        }
+                    }
+                }
+                myBounds = retVal;
+            }
+            return retVal;
+        }
+
+        /**
+         * Expands bounds ({min, max}) to include the y-values of the items with x-values in [from, to].
+         */
+        void findRange(final double from, final double to, final double[] bounds) {
+
+            final double[] tmpAll = this.bounds();
+
+            if ((from <= tmpAll[0]) && (tmpAll[1] <= to)) {
+                // All items are in range - no need to iterate
+                if (tmpAll[2] <= tmpAll[3]) {
+                    bounds[0] = Math.min(bounds[0], tmpAll[2]);
+                    bounds[1] = Math.max(bounds[1], tmpAll[3]);
+                }
+                return;
+            }
+
+            final int tmpFirst = ascending ? DownsampledXYDataset.search(this::x, count, from, false) : 0;
+            final int tmpLimit = ascending ? DownsampledXYDataset.search(this::x, count, to, true) : count;
+
+            for (int i = tmpFirst; i < tmpLimit; i++) {
+                final double tmpX = this.x(i);
+                if ((from <= tmpX) && (tmpX <= to)) {
+                    final double tmpY = this.y(i);
+                    if (!Double.isNaN(tmpY)) {
+                        bounds[0] = Math.min(bounds[0], tmpY);
+                        bounds[1] = Math.max(bounds[1], tmpY);
+                    }
+                }
+            }
+        }
+
+        abstract void fingerprint(Fingerprint fingerprint);
+
+        /**
+         * @return true if the x-values are known to be the same as those of the other series (without
+         *         comparing them)
+         */
+        abstract boolean sharesX(Series other);
+
+        abstract double x(int item);
+
+        abstract double y(int item);
+
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    static boolean isAscending(final double[] x, final int count) {
+        for (int i = 1; i < count; i++) {
+            if (x[i - 1] > x[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final ArrayList<Series> mySeries = new ArrayList<>();
+
+    public PrimitiveXYDataset() {
+        super();
+    }
+
+    public void addSeries(final String key, final double[] x, final double[] y) {
+        this.addSeries(key, x, y, x.length);
+    }
+
+    /**
+     * @param count The number of (leading) elements in the arrays that are actually used
+     */
+    public void addSeries(final String key, final double[] x, final double[] y, final int count) {
+
+        ProgrammingError.throwIfNull(key);
+
+        if ((count > x.length) || (count > y.length)) {
+            throw new IllegalArgumentException("The arrays are shorter than count!");
+        }
+        this.checkKey(key);
+
+        mySeries.add(new ArraySeries(key, x, y, count));
+
+        this.fireDatasetChanged();
+    }
+
+    /**
+     * A series read, zero-copy, from memory mapped columns of a {@link MappedSeriesFile}.
+     *
+     * @param x The name of the x-values column
+     * @param y The name of the y-values column
+     */
+    public void addSeries(final String key, final MappedSeriesFile file, final String x, final String y) {
+
+        ProgrammingError.throwIfNull(key, file);
+
+        this.checkKey(key);
+
+        mySeries.add(new MappedSeries(key, file, file.getColumn(x), file.getColumn(y)));
+
+        this.fireDatasetChanged();
+    }
+
+    public Range getDomainBounds(final boolean includeInterval) {
+        return this.getDomainBounds(null, includeInterval);
+    }
+
+    public Range getDomainBounds(final List visibleSeriesKeys, final boolean includeInterval) {
+
+        double tmpMin = Double.POSITIVE_INFINITY;
+        double tmpMax = Double.NEGATIVE_INFINITY;
+
+        for (final Series tmpSeries : mySeries) {
+            if ((visibleSeriesKeys == null) || visibleSeriesKeys.contains(tmpSeries.key)) {
+                final double[] tmpBounds = tmpSeries.bounds();
+                tmpMin = Math.min(tmpMin, tmpBounds[0]);
+                tmpMax = Math.max(tmpMax, tmpBounds[1]);
+            }
+        }
+
+        return tmpMin <= tmpMax ? new Range(tmpMin, tmpMax) : null;
+    }
+
+    public double getDomainLowerBound(final boolean includeInterval) {
+        final Range tmpRange = this.getDomainBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getLowerBound() : Double.NaN;
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        for (final Series tmpSeries : mySeries) {
+            if (!tmpSeries.ascending) {
+                return DomainOrder.NONE;
+            }
+        }
+        return DomainOrder.ASCENDING;
+    }
+
+    public double getDomainUpperBound(final boolean includeInterval) {
+        final Range tmpRange = this.getDomainBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getUpperBound() : Double.NaN;
+    }
+
+    public Number getEndX(final int series, final int item) {
+        return this.getX(series, item);
+    }
+
+    @Override
+    public double getEndXValue(final int series, final int item) {
+        return mySeries.get(series).x(item);
+    }
+
+    public Number getEndY(final int series, final int item) {
+        return this.getY(series, item);
+    }
+
+    @Override
+    public double getEndYValue(final int series, final int item) {
+        return mySeries.get(series).y(item);
+    }
+
+    /**
+     * @see TableXYDataset#getItemCount()
+     */
+    public int getItemCount() {
+        return mySeries.size() > 0 ? mySeries.get(0).count : 0;
+    }
+
+    public int getItemCount(final int series) {
+        return mySeries.get(series).count;
+    }
+
+    public Range getRangeBounds(final boolean includeInterval) {
+        return this.getRangeBounds(null, null, includeInterval);
+    }
+
+    public Range getRangeBounds(final List visibleSeriesKeys, final Range xRange, final boolean includeInterval) {
+
+        final double tmpFrom = xRange != null ? xRange.getLowerBound() : Double.NEGATIVE_INFINITY;
+        final double tmpTo = xRange != null ? xRange.getUpperBound() : Double.POSITIVE_INFINITY;
+
+        final double[] tmpBounds = { Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (final Series tmpSeries : mySeries) {
+            if ((visibleSeriesKeys == null) || visibleSeriesKeys.contains(tmpSeries.key)) {
+                tmpSeries.findRange(tmpFrom, tmpTo, tmpBounds);
+            }
+        }
+
+        return tmpBounds[0] <= tmpBounds[1] ? new Range(tmpBounds[0], tmpBounds[1]) : null;
+    }
+
+    public double getRangeLowerBound(final boolean includeInterval) {
+        final Range tmpRange = this.getRangeBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getLowerBound() : Double.NaN;
+    }
+
+    public double getRangeUpperBound(final boolean includeInterval) {
+        final Range tmpRange = this.getRangeBounds(includeInterval);
+        return tmpRange != null ? tmpRange.getUpperBound() : Double.NaN;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return mySeries.size();
+    }
+
+    @Override
+    public Comparable<?> getSeriesKey(final int series) {
+        return mySeries.get(series).key;
+    }
+
+    public Number getStartX(final int series, final int item) {
+        return this.getX(series, item);
+    }
+
+    @Override
+    public double getStartXValue(final int series, final int item) {
+        return mySeries.get(series).x(item);
+    }
+
+    public Number getStartY(final int series, final int item) {
+        return this.getY(series, item);
+    }
+
+    @Override
+    public double getStartYValue(final int series, final int item) {
+        return mySeries.get(series).y(item);
+    }
+
+    public Number getX(final int series, final int item) {
+        return mySeries.get(series).x(item);
+    }
+
+    @Override
+    public double getXValue(final int series, final int item) {
+        return mySeries.get(series).x(item);
+    }
+
+    public Number getY(final int series, final int item) {
+        return mySeries.get(series).y(item);
+    }
+
+    @Override
+    public double getYValue(final int series, final int item) {
+        return mySeries.get(series).y(item);
+    }
+
+    /**
+     * @return true if all series have the same number of items and identical x-values.
+     */
+    public boolean isAligned() {
+
+        if (mySeries.size() > 1) {
+
+            final Series tmpFirst = mySeries.get(0);
+
+            for (int s = 1; s < mySeries.size(); s++) {
+                final Series tmpOther = mySeries.get(s);
+                if (tmpOther.count != tmpFirst.count) {
+                    return false;
+                }
+                if (!tmpOther.sharesX(tmpFirst)) {
+                    for (int i = 0; i < tmpFirst.count; i++) {
+                        if (tmpOther.x(i) != tmpFirst.x(i)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    void fingerprint(final Fingerprint fingerprint) {
+        fingerprint.add(mySeries.size());
+        for (final Series tmpSeries : mySeries) {
+            tmpSeries.fingerprint(fingerprint);
+        }
+    }
+
+    Series getSeries(final int series) {
+        return mySeries.get(series);
+    }
+
+    private void checkKey(final String key) {
+        if (this.indexOf(key) >= 0) {
+            throw new IllegalArgumentException("This dataset already contains a series with the key " + key);
+        }
+    }
+
+}
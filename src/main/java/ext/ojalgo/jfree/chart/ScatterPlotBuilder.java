@@ -46,10 +46,28 @@ import org.jfree.data.xy.XYDataset;
  */
 public class ScatterPlotBuilder extends NumberSeriesCollection {
 
+    private boolean myDensity = false;
+
     public ScatterPlotBuilder() {
         super();
     }
 
+    /**
+     * Draw a density raster (a 2D histogram at pixel resolution) instead of a shape per point. Meant for
+     * very large numbers of points - the drawing cost then depends on the chart size rather than the number
+     * of points. Any {@link #downsample(Downsampling)} setting is ignored in this mode.
+     */
+    public ScatterPlotBuilder density(final boolean density) {
+        myDensity = density;
+        return this;
+    }
+
+    @Override
+    protected void fingerprint(final Fingerprint fingerprint) {
+        super.fingerprint(fingerprint);
+        fingerprint.add(myDensity);
+    }
+
     @Override
     protected Plot makePlot(final JFreeChartBuilder.PlotParameters parameters) {
 
@@ -78,8 +96,9 @@ public class ScatterPlotBuilder extends NumberSeriesCollection {
             tmpRangeAxis.setAutoRangeIncludesZero(range.isZeroIncluded());
         }
 
-        final XYDataset tmpDataset = this.getXYData();
-        final XYPlot retVal = new XYPlot(tmpDataset, tmpDomainAxis, tmpRangeAxis, null);
+        final XYDataset tmpDataset = myDensity ? this.getRawXYData() : this.getXYData();
+        final XYPlot retVal = myDensity ? new DensityXYPlot(tmpDataset, tmpDomainAxis, tmpRangeAxis, null)
+                : new XYPlot(tmpDataset, tmpDomainAxis, tmpRangeAxis, null);
 
         XYToolTipGenerator toolTipGenerator = null;
         if (this.isTooltips()) {
@@ -0,0 +1,149 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.ojalgo.random.LogNormal;
+import org.ojalgo.random.process.GeometricBrownianMotion;
+
+/**
+ * Simulates scenarios (paths) of a {@link GeometricBrownianMotion} where each scenario has its own random
+ * number stream derived from a seed and the scenario index. A given seed always produces the same scenarios,
+ * regardless of how many threads are used or how the scenarios are split between them.
+ */
+final class ScenarioGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The SplitMix64 finaliser - turns (seed, index) into a well mixed seed for that index's stream.
+     */
+    static long mix(final long seed, final long index) {
+        long z = seed + ((index + 1L) * GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private final double myDiffusion;
+    private final double myDrift;
+    private final double myInitialValue;
+    private final long mySeed;
+
+    /**
+     * @param process The process to simulate, starting at its current value
+     * @param stepSize The size of each step, in the process' time unit
+     * @param seed The seed
+     */
+    ScenarioGenerator(final GeometricBrownianMotion process, final double stepSize, final long seed) {
+
+        super();
+
+        myInitialValue = process.getValue();
+
+        final LogNormal tmpStep = process.getDistribution(stepSize);
+        myDrift = Math.log(tmpStep.getGeometricMean() / myInitialValue);
+        myDiffusion = Math.log(tmpStep.getGeometricStandardDeviation());
+
+        mySeed = seed;
+    }
+
+    /**
+     * @return [scenario][step] - the initial value followed by the values after each step
+     */
+    double[][] generate(final int scenarios, final int steps, final int parallelism) {
+
+        final double[][] retVal = new double[scenarios][steps + 1];
+
+        final ForkJoinPool tmpPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            this.generate(0, retVal, scenarios, tmpPool);
+        } finally {
+            if (tmpPool != null) {
+                tmpPool.shutdown();
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Simulates a block of scenarios, starting at scenario index first, into the (reusable) destination
+     * array.
+     *
+     * @param pool null means simulate on the calling thread
+     */
+    void generate(final int first, final double[][] destination, final int count, final ForkJoinPool pool) {
+        if (pool != null) {
+            try {
+                pool.submit(() -> IntStream.range(0, count).parallel().forEach(r -> this.path(first + r, destination[r]))).get();
+            } catch (InterruptedException | ExecutionException cause) {
+                throw new IllegalStateException(cause);
+            }
+        } else {
+            for (int r = 0; r < count; r++) {
+                this.path(first + r, destination[r]);
+            }
+        }
+    }
+
+    double getInitialValue() {
+        return myInitialValue;
+    }
+
+    /**
+     * Simulates one scenario filling the destination array - the initial value followed by one value per
+     * step.
+     */
+    void path(final int scenario, final double[] destination) {
+
+        final SplittableRandom tmpRandom = new SplittableRandom(ScenarioGenerator.mix(mySeed, scenario));
+
+        destination[0] = myInitialValue;
+        double tmpLogValue = Math.log(myInitialValue);
+
+        for (int s = 1; s < destination.length; s += 2) {
+
+            // Marsaglia polar method - 2 standard normals per accepted pair
+            double u, v, q;
+            do {
+                u = (2.0 * tmpRandom.nextDouble()) - 1.0;
+                v = (2.0 * tmpRandom.nextDouble()) - 1.0;
+                q = (u * u) + (v * v);
+            } while ((q >= 1.0) || (q == 0.0));
+            final double tmpFactor = Math.sqrt((-2.0 * Math.log(q)) / q);
+
+            tmpLogValue += myDrift + (myDiffusion * u * tmpFactor);
+            destination[s] = Math.exp(tmpLogValue);
+
+            if ((s + 1) < destination.length) {
+                tmpLogValue += myDrift + (myDiffusion * v * tmpFactor);
+                destination[s + 1] = Math.exp(tmpLogValue);
+            }
+        }
+    }
+
+}
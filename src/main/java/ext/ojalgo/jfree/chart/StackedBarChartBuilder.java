@@ -29,10 +29,38 @@ import org.jfree.chart.plot.Plot;
 import org.jfree.chart.renderer.category.StackedBarRenderer;
 import org.jfree.chart.renderer.category.StandardBarPainter;
 import org.jfree.chart.urls.StandardCategoryURLGenerator;
-import org.jfree.data.general.DefaultKeyedValues2DDataset;
+import org.jfree.data.Range;
+import org.jfree.data.category.CategoryDataset;
 
 public class StackedBarChartBuilder extends AbstractData2D {
 
+    /**
+     * Uses the stacked range bounds of {@link IndexedCategoryDataset} (cached) or
+     * {@link Access2DCategoryDataset} (not boxed) rather than iterating over all values.
+     */
+    static final class Renderer extends StackedBarRenderer {
+
+        private static final long serialVersionUID = 1L;
+
+        Renderer() {
+            super();
+        }
+
+        @Override
+        public Range findRangeBounds(final CategoryDataset dataset) {
+            if (this.getRenderAsPercentages()) {
+                return super.findRangeBounds(dataset);
+            } else if (dataset instanceof IndexedCategoryDataset) {
+                return ((IndexedCategoryDataset) dataset).getStackedRangeBounds(this.getBase());
+            } else if (dataset instanceof Access2DCategoryDataset) {
+                return ((Access2DCategoryDataset) dataset).getStackedRangeBounds(this.getBase());
+            } else {
+                return super.findRangeBounds(dataset);
+            }
+        }
+
+    }
+
     public StackedBarChartBuilder() {
         super();
     }
@@ -40,13 +68,13 @@ public class StackedBarChartBuilder extends AbstractData2D {
     @Override
     protected Plot makePlot(final JFreeChartBuilder.PlotParameters parameters) {
 
-        final DefaultKeyedValues2DDataset tmpDataset = this.getDataset();
+        final CategoryDataset tmpDataset = this.getCategoryDataset();
 
         final CategoryAxis tmpCategoryAxis = this.makeCategoryAxis(domain);
 
         final ValueAxis tmpValueAxis = this.makeValueAxis(range);
 
-        final StackedBarRenderer tmpRenderer = new StackedBarRenderer();
+        final StackedBarRenderer tmpRenderer = new Renderer();
         tmpRenderer.setBarPainter(new StandardBarPainter());
         tmpRenderer.setShadowVisible(false);
 
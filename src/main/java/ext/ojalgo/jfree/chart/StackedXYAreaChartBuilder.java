@@ -40,7 +40,9 @@ import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.StackedXYAreaRenderer2;
 import org.jfree.chart.urls.StandardXYURLGenerator;
 import org.jfree.chart.urls.XYURLGenerator;
+import org.jfree.data.Range;
 import org.jfree.data.xy.TableXYDataset;
+import org.jfree.data.xy.XYDataset;
 import org.ojalgo.random.Uniform;
 import org.ojalgo.type.keyvalue.StringToDouble;
 
@@ -51,6 +53,29 @@ import org.ojalgo.type.keyvalue.StringToDouble;
  */
 public class StackedXYAreaChartBuilder extends NumberSeriesCollection {
 
+    /**
+     * Uses the stacked range bounds cached in {@link AlignedTableXYDataset} rather than iterating over all
+     * items of all series.
+     */
+    static final class Renderer extends StackedXYAreaRenderer2 {
+
+        private static final long serialVersionUID = 1L;
+
+        Renderer(final XYToolTipGenerator toolTipGenerator, final XYURLGenerator urlGenerator) {
+            super(toolTipGenerator, urlGenerator);
+        }
+
+        @Override
+        public Range findRangeBounds(final XYDataset dataset) {
+            if (dataset instanceof AlignedTableXYDataset) {
+                return ((AlignedTableXYDataset) dataset).getStackedRangeBounds();
+            } else {
+                return super.findRangeBounds(dataset);
+            }
+        }
+
+    }
+
     public StackedXYAreaChartBuilder() {
         super();
     }
@@ -92,7 +117,7 @@ public class StackedXYAreaChartBuilder extends NumberSeriesCollection {
             urlGenerator = new StandardXYURLGenerator();
         }
 
-        final StackedXYAreaRenderer2 tmpRenderer = new StackedXYAreaRenderer2(toolTipGenerator, urlGenerator);
+        final StackedXYAreaRenderer2 tmpRenderer = new Renderer(toolTipGenerator, urlGenerator);
         //tmpRenderer.setOutline(true);
 
         String tmpKey;
@@ -0,0 +1,199 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.jfree.data.general.DefaultKeyedValuesDataset;
+
+/**
+ * Keeps the keys with the largest values, at most a fixed number of them, in a bounded min-heap. The values
+ * of all other keys are summed in to an "other" value. Memory is O(capacity) regardless of how many keys are
+ * streamed through.
+ * <p>
+ * Setting the value of a key that is currently kept replaces its value. A key that has already been merged
+ * in to "other" can not be told apart from a new key - each key should only be given once. A value given
+ * with the "other" key itself is always added to "other".
+ */
+final class TopKeyedValues {
+
+    private final int myCapacity;
+    private final HashMap<Comparable<?>, Integer> myIndices;
+    private final Comparable<?>[] myKeys;
+    private double myOther = 0.0;
+    private int myOtherCount = 0;
+    private final Comparable<?> myOtherKey;
+    private int mySize = 0;
+    private final double[] myValues;
+
+    TopKeyedValues(final int capacity, final Comparable<?> otherKey) {
+
+        super();
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Must keep at least 1 key!");
+        }
+
+        myCapacity = capacity;
+        myOtherKey = otherKey;
+        myKeys = new Comparable<?>[capacity];
+        myValues = new double[capacity];
+        myIndices = new HashMap<>(2 * capacity);
+    }
+
+    /**
+     * O(log capacity)
+     */
+    void offer(final Comparable<?> key, final double value) {
+
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        if (myOtherKey.equals(key)) {
+            myOther += value;
+            myOtherCount++;
+            return;
+        }
+
+        final Integer tmpIndex = myIndices.get(key);
+
+        if (tmpIndex != null) {
+
+            final double tmpOld = myValues[tmpIndex];
+            myValues[tmpIndex] = value;
+            if (value < tmpOld) {
+                this.up(tmpIndex);
+            } else {
+                this.down(tmpIndex);
+            }
+
+        } else if (mySize < myCapacity) {
+
+            myKeys[mySize] = key;
+            myValues[mySize] = value;
+            myIndices.put(key, mySize);
+            this.up(mySize++);
+
+        } else if (value > myValues[0]) {
+
+            // Evict the smallest
+            myOther += myValues[0];
+            myOtherCount++;
+            myIndices.remove(myKeys[0]);
+
+            myKeys[0] = key;
+            myValues[0] = value;
+            myIndices.put(key, 0);
+            this.down(0);
+
+        } else {
+
+            myOther += value;
+            myOtherCount++;
+        }
+    }
+
+    /**
+     * @return A new instance, with the given capacity and "other" key, that the kept keys and the "other"
+     *         sum of this instance have been moved to.
+     */
+    TopKeyedValues resize(final int capacity, final Comparable<?> otherKey) {
+
+        final TopKeyedValues retVal = new TopKeyedValues(capacity, otherKey);
+
+        for (int i = 0; i < mySize; i++) {
+            retVal.offer(myKeys[i], myValues[i]);
+        }
+        retVal.myOther += myOther;
+        retVal.myOtherCount += myOtherCount;
+
+        return retVal;
+    }
+
+    /**
+     * @return The kept keys, largest value first, followed by the "other" key (if anything was merged)
+     */
+    DefaultKeyedValuesDataset toDataset() {
+
+        final Integer[] tmpOrder = new Integer[mySize];
+        for (int i = 0; i < mySize; i++) {
+            tmpOrder[i] = i;
+        }
+        Arrays.sort(tmpOrder, (first, second) -> Double.compare(myValues[second], myValues[first]));
+
+        final DefaultKeyedValuesDataset retVal = new DefaultKeyedValuesDataset();
+        for (final Integer tmpIndex : tmpOrder) {
+            retVal.setValue(myKeys[tmpIndex], myValues[tmpIndex]);
+        }
+        if (myOtherCount > 0) {
+            retVal.setValue(myOtherKey, myOther);
+        }
+
+        return retVal;
+    }
+
+    private void down(final int index) {
+        int tmpIndex = index;
+        while (true) {
+            final int tmpLeft = (2 * tmpIndex) + 1;
+            if (tmpLeft >= mySize) {
+                return;
+            }
+            final int tmpRight = tmpLeft + 1;
+            final int tmpSmallest = (tmpRight < mySize) && (myValues[tmpRight] < myValues[tmpLeft]) ? tmpRight : tmpLeft;
+            if (myValues[tmpSmallest] >= myValues[tmpIndex]) {
+                return;
+            }
+            this.swap(tmpIndex, tmpSmallest);
+            tmpIndex = tmpSmallest;
+        }
+    }
+
+    private void swap(final int first, final int second) {
+
+        final Comparable<?> tmpKey = myKeys[first];
+        myKeys[first] = myKeys[second];
+        myKeys[second] = tmpKey;
+
+        final double tmpValue = myValues[first];
+        myValues[first] = myValues[second];
+        myValues[second] = tmpValue;
+
+        myIndices.put(myKeys[first], first);
+        myIndices.put(myKeys[second], second);
+    }
+
+    private void up(final int index) {
+        int tmpIndex = index;
+        while (tmpIndex > 0) {
+            final int tmpParent = (tmpIndex - 1) / 2;
+            if (myValues[tmpParent] <= myValues[tmpIndex]) {
+                return;
+            }
+            this.swap(tmpIndex, tmpParent);
+            tmpIndex = tmpParent;
+        }
+    }
+
+}
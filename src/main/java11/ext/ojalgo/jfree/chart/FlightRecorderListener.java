@@ -0,0 +1,86 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits a JDK Flight Recorder event per measurement. Only ever loaded (reflectively) by
+ * {@link ChartInstrumentation#flightRecorder()}, so JVMs without jdk.jfr are not affected.
+ */
+final class FlightRecorderListener implements ChartInstrumentation.Listener {
+
+    @Name("ext.ojalgo.jfree.chart.Phase")
+    @Label("ojAlgo JFreeChart Phase")
+    @Category({ "ojAlgo", "JFreeChart" })
+    static final class PhaseEvent extends Event {
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+
+        @Label("CPU Time")
+        @Timespan
+        long cpuNanos;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Points")
+        long points;
+
+        @Label("Series")
+        int series;
+
+        @Label("Wall Time")
+        @Timespan
+        long wallNanos;
+
+    }
+
+    FlightRecorderListener() {
+        super();
+        // Fail early (when loaded) if jdk.jfr is not there
+        new PhaseEvent();
+    }
+
+    public void onPhase(final ChartInstrumentation.Measurement measurement) {
+
+        final PhaseEvent tmpEvent = new PhaseEvent();
+
+        if (tmpEvent.isEnabled()) {
+            tmpEvent.phase = measurement.phase.name();
+            tmpEvent.wallNanos = measurement.wallNanos;
+            tmpEvent.cpuNanos = measurement.cpuNanos;
+            tmpEvent.allocatedBytes = measurement.allocatedBytes;
+            tmpEvent.points = measurement.points;
+            tmpEvent.series = measurement.series;
+            tmpEvent.commit();
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.jfree.chart.plot.PiePlot;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.general.DefaultPieDataset;
+import org.jfree.data.xy.TableXYDataset;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.junit.jupiter.api.Test;
+
+public class ChartTemplateTest {
+
+    private static byte[] render(final JFreeChartAdaptor chart) {
+        chart.setWidth(400);
+        chart.setHeight(300);
+        return chart.toByteArray();
+    }
+
+    @Test
+    public void testPie() {
+
+        final PieChartBuilder tmpBuilder = new PieChartBuilder();
+        tmpBuilder.value("A", 1.0);
+
+        final DefaultPieDataset<String> tmpDataset = new DefaultPieDataset<>();
+        tmpDataset.setValue("X", 1.0);
+        tmpDataset.setValue("Y", 2.0);
+
+        final JFreeChartAdaptor tmpChart = new ChartTemplate(tmpBuilder).make(tmpDataset);
+
+        assertSame(tmpDataset, ((PiePlot<?>) tmpChart.getDelegate().getPlot()).getDataset());
+        assertTrue(ChartTemplateTest.render(tmpChart).length > 0);
+    }
+
+    @Test
+    public void testStackedXYArea() {
+
+        final StackedXYAreaChartBuilder tmpBuilder = new StackedXYAreaChartBuilder();
+        tmpBuilder.addSeries("A", new double[] { 1.0, 2.0, 3.0 }, new double[] { 1.0, 2.0, 1.0 });
+
+        // Not a TableXYDataset, and the x-values differ between the series
+        final XYSeries tmpFirst = new XYSeries("X", true, false);
+        tmpFirst.add(1.0, 1.0);
+        tmpFirst.add(2.0, 3.0);
+        final XYSeries tmpSecond = new XYSeries("Y", true, false);
+        tmpSecond.add(1.5, 2.0);
+        tmpSecond.add(3.0, 1.0);
+        final XYSeriesCollection tmpDataset = new XYSeriesCollection();
+        tmpDataset.addSeries(tmpFirst);
+        tmpDataset.addSeries(tmpSecond);
+
+        final JFreeChartAdaptor tmpChart = new ChartTemplate(tmpBuilder).make(tmpDataset);
+
+        assertTrue(((XYPlot) tmpChart.getDelegate().getPlot()).getDataset() instanceof TableXYDataset);
+        assertTrue(ChartTemplateTest.render(tmpChart).length > 0);
+    }
+
+    @Test
+    public void testWrongDataset() {
+        final ChartTemplate tmpTemplate = new ChartTemplate(new PieChartBuilder());
+        assertThrows(IllegalArgumentException.class, () -> tmpTemplate.make(new XYSeriesCollection()));
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.xy.XYDataset;
+import org.junit.jupiter.api.Test;
+
+import ext.ojalgo.jfree.chart.AbstractSeriesData.Downsampling;
+
+public class DownsampledXYDatasetTest {
+
+    private static XYDataset dataset(final JFreeChartAdaptor chart) {
+        return ((XYPlot) chart.getDelegate().getPlot()).getDataset();
+    }
+
+    @Test
+    public void testOneViewPerBuilder() {
+
+        final double[] tmpX = new double[1000];
+        final double[] tmpY = new double[1000];
+        for (int i = 0; i < tmpX.length; i++) {
+            tmpX[i] = i;
+            tmpY[i] = Math.sin(i / 10.0);
+        }
+
+        final ScatterPlotBuilder tmpBuilder = new ScatterPlotBuilder();
+        tmpBuilder.addSeries("Y", tmpX, tmpY);
+        tmpBuilder.downsample(Downsampling.MIN_MAX);
+
+        final XYDataset tmpFirst = DownsampledXYDatasetTest.dataset(tmpBuilder.build());
+        final XYDataset tmpSecond = DownsampledXYDatasetTest.dataset(tmpBuilder.build());
+
+        assertTrue(tmpFirst instanceof DownsampledXYDataset);
+        assertSame(tmpFirst, tmpSecond);
+        assertTrue(tmpBuilder.getRawXYData().hasListener((DownsampledXYDataset) tmpFirst));
+
+        tmpBuilder.downsample(Downsampling.LTTB);
+
+        final XYDataset tmpThird = DownsampledXYDatasetTest.dataset(tmpBuilder.build());
+
+        assertNotSame(tmpFirst, tmpThird);
+        assertFalse(tmpBuilder.getRawXYData().hasListener((DownsampledXYDataset) tmpFirst));
+        assertTrue(tmpBuilder.getRawXYData().hasListener((DownsampledXYDataset) tmpThird));
+
+        tmpBuilder.downsample(null);
+
+        assertSame(tmpBuilder.getRawXYData(), DownsampledXYDatasetTest.dataset(tmpBuilder.build()));
+        assertFalse(tmpBuilder.getRawXYData().hasListener((DownsampledXYDataset) tmpThird));
+    }
+
+}
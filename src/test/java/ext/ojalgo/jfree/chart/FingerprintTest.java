@@ -0,0 +1,165 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Rectangle2D;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+public class FingerprintTest {
+
+    private static BarChartBuilder newBarChart() {
+        final BarChartBuilder retVal = new BarChartBuilder();
+        retVal.title("Title");
+        retVal.value("A", "X", 1.0).value("A", "Y", 2.0).value("B", "X", 3.0);
+        return retVal;
+    }
+
+    private static ScatterPlotBuilder newScatterPlot(final Shape shape) {
+        final ScatterPlotBuilder retVal = new ScatterPlotBuilder();
+        retVal.addSeries("Series", new double[] { 1.0, 2.0, 3.0 }, new double[] { 3.0, 1.0, 2.0 }, shape);
+        return retVal;
+    }
+
+    private static GeneralPath newTriangle(final float size) {
+        final GeneralPath retVal = new GeneralPath();
+        retVal.moveTo(0.0F, -size);
+        retVal.lineTo(size, size);
+        retVal.lineTo(-size, size);
+        retVal.closePath();
+        return retVal;
+    }
+
+    @Test
+    public void testDifferentData() {
+
+        final BarChartBuilder tmpOther = FingerprintTest.newBarChart();
+        tmpOther.value("B", "Y", 4.0);
+
+        assertNotEquals(FingerprintTest.newBarChart().fingerprint(), tmpOther.fingerprint());
+    }
+
+    @Test
+    public void testDifferentFormats() {
+
+        // Formats that all format numbers differently
+        final List<Supplier<NumberFormat>> tmpFormats = new ArrayList<>();
+        tmpFormats.add(NumberFormat::getPercentInstance);
+        tmpFormats.add(NumberFormat::getIntegerInstance);
+        tmpFormats.add(() -> new DecimalFormat("#,##0.00"));
+        tmpFormats.add(() -> new DecimalFormat("0 kr"));
+        tmpFormats.add(() -> new DecimalFormat("0"));
+        tmpFormats.add(() -> new DecimalFormat("0.0", DecimalFormatSymbols.getInstance(Locale.US)));
+        tmpFormats.add(() -> new DecimalFormat("0.0", DecimalFormatSymbols.getInstance(Locale.GERMANY)));
+        tmpFormats.add(() -> null);
+
+        final List<Fingerprint> tmpFingerprints = new ArrayList<>();
+        for (final Supplier<NumberFormat> tmpFormat : tmpFormats) {
+
+            final BarChartBuilder tmpFirst = FingerprintTest.newBarChart();
+            tmpFirst.range.format(tmpFormat.get());
+            final BarChartBuilder tmpSecond = FingerprintTest.newBarChart();
+            tmpSecond.range.format(tmpFormat.get());
+
+            final Fingerprint tmpFingerprint = tmpFirst.fingerprint();
+            assertTrue(tmpFingerprint.isCacheable());
+            assertEquals(tmpFingerprint, tmpSecond.fingerprint(), "Separate, but equal, format instances");
+
+            for (final Fingerprint tmpOther : tmpFingerprints) {
+                assertNotEquals(tmpOther, tmpFingerprint);
+            }
+            tmpFingerprints.add(tmpFingerprint);
+        }
+    }
+
+    @Test
+    public void testDifferentShapes() {
+
+        final Fingerprint tmpTriangle = FingerprintTest.newScatterPlot(FingerprintTest.newTriangle(3.0F)).fingerprint();
+        final Fingerprint tmpLargerTriangle = FingerprintTest.newScatterPlot(FingerprintTest.newTriangle(4.0F)).fingerprint();
+        final Fingerprint tmpSquare = FingerprintTest.newScatterPlot(new Rectangle2D.Double(-3.0, -3.0, 6.0, 6.0)).fingerprint();
+        final Fingerprint tmpCircle = FingerprintTest.newScatterPlot(new Ellipse2D.Double(-3.0, -3.0, 6.0, 6.0)).fingerprint();
+
+        assertTrue(tmpTriangle.isCacheable());
+        assertTrue(tmpSquare.isCacheable());
+        assertTrue(tmpCircle.isCacheable());
+
+        assertNotEquals(tmpTriangle, tmpLargerTriangle);
+        assertNotEquals(tmpTriangle, tmpSquare);
+        assertNotEquals(tmpSquare, tmpCircle);
+    }
+
+    @Test
+    public void testEqualBuilders() {
+
+        final BarChartBuilder tmpFirst = FingerprintTest.newBarChart();
+        final BarChartBuilder tmpSecond = FingerprintTest.newBarChart();
+
+        tmpFirst.colour("A", new Color(0x336699));
+        tmpSecond.colour("A", new Color(0x336699));
+
+        assertTrue(tmpFirst.fingerprint().isCacheable());
+        assertEquals(tmpFirst.fingerprint(), tmpSecond.fingerprint());
+        assertEquals(tmpFirst.fingerprint().toString(), tmpSecond.fingerprint().toString());
+
+        tmpSecond.colour("A", new Color(0x336698));
+        assertNotEquals(tmpFirst.fingerprint(), tmpSecond.fingerprint());
+    }
+
+    @Test
+    public void testEqualShapes() {
+
+        // GeneralPath does not implement equals/hashCode
+        final Fingerprint tmpFirst = FingerprintTest.newScatterPlot(FingerprintTest.newTriangle(3.0F)).fingerprint();
+        final Fingerprint tmpSecond = FingerprintTest.newScatterPlot(FingerprintTest.newTriangle(3.0F)).fingerprint();
+
+        assertTrue(tmpFirst.isCacheable());
+        assertEquals(tmpFirst, tmpSecond);
+    }
+
+    @Test
+    public void testUnknownType() {
+
+        final BarChartBuilder tmpBuilder = FingerprintTest.newBarChart();
+        tmpBuilder.colour("A", new GradientPaint(0.0F, 0.0F, Color.RED, 1.0F, 1.0F, Color.BLUE));
+
+        assertFalse(tmpBuilder.fingerprint().isCacheable());
+
+        assertFalse(new Fingerprint().add(new Object()).isCacheable());
+        assertTrue(new Fingerprint().add("Text").add(1.0).add(true).add(Locale.Category.FORMAT).isCacheable());
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import org.jfree.data.Range;
+import org.junit.jupiter.api.Test;
+
+public class LiveSeriesTest {
+
+    /**
+     * The points a live series should retain, maintained the naive way
+     */
+    static final class Model {
+
+        private final int myCapacity;
+        private final ArrayDeque<double[]> myPoints = new ArrayDeque<>();
+        private final long myWindow;
+
+        Model(final int capacity, final long window) {
+            super();
+            myCapacity = capacity;
+            myWindow = window;
+        }
+
+        void append(final long millis, final double low, final double value, final double high) {
+            myPoints.addLast(new double[] { millis, low, value, high });
+            if (myPoints.size() > myCapacity) {
+                myPoints.removeFirst();
+            }
+            while ((myWindow > 0L) && (myPoints.size() > 1) && (myPoints.peekFirst()[0] < (millis - myWindow))) {
+                myPoints.removeFirst();
+            }
+        }
+
+        /**
+         * Columns are 1: low, 2: value and 3: high
+         *
+         * @return The min of one column and the max of another, or null if there are only NaN values
+         */
+        Range range(final int minColumn, final int maxColumn) {
+            double tmpMin = Double.POSITIVE_INFINITY;
+            double tmpMax = Double.NEGATIVE_INFINITY;
+            for (final double[] tmpPoint : myPoints) {
+                if (!Double.isNaN(tmpPoint[minColumn])) {
+                    tmpMin = Math.min(tmpMin, tmpPoint[minColumn]);
+                }
+                if (!Double.isNaN(tmpPoint[maxColumn])) {
+                    tmpMax = Math.max(tmpMax, tmpPoint[maxColumn]);
+                }
+            }
+            return tmpMin <= tmpMax ? new Range(tmpMin, tmpMax) : null;
+        }
+
+    }
+
+    private static void assertMatches(final Model expected, final PrimitiveTimeSeriesDataset actual) {
+
+        assertEquals(expected.myPoints.size(), actual.getItemCount(0));
+
+        int i = 0;
+        for (final double[] tmpPoint : expected.myPoints) {
+            assertEquals(tmpPoint[0], actual.getXValue(0, i));
+            assertEquals(tmpPoint[1], actual.getStartYValue(0, i));
+            assertEquals(tmpPoint[2], actual.getYValue(0, i));
+            assertEquals(tmpPoint[3], actual.getEndYValue(0, i));
+            i++;
+        }
+
+        assertEquals(expected.range(1, 3), actual.getRangeBounds(true));
+        assertEquals(expected.range(2, 2), actual.getRangeBounds(false));
+    }
+
+    @Test
+    public void testAppendOutOfOrder() {
+
+        final PrimitiveTimeSeriesDataset tmpDataset = new PrimitiveTimeSeriesDataset();
+        tmpDataset.addLiveSeries("Live", 10, 0L, false);
+
+        tmpDataset.append(0, 100L, 1.0);
+        assertThrows(IllegalArgumentException.class, () -> tmpDataset.append(0, 99L, 2.0));
+        assertEquals(1, tmpDataset.getItemCount(0));
+    }
+
+    @Test
+    public void testCapacity() {
+
+        final Random tmpRandom = new Random(123L);
+
+        final PrimitiveTimeSeriesDataset tmpDataset = new PrimitiveTimeSeriesDataset();
+        tmpDataset.addLiveSeries("Live", 100, 0L, false);
+        final Model tmpModel = new Model(100, 0L);
+
+        for (int i = 0; i < 1000; i++) {
+            // Trending values so that the min/max are evicted regularly
+            final double tmpValue = tmpRandom.nextInt(20) == 0 ? Double.NaN : Math.sin(i / 50.0) + tmpRandom.nextGaussian();
+            tmpDataset.append(0, i, tmpValue);
+            tmpModel.append(i, tmpValue, tmpValue, tmpValue);
+            LiveSeriesTest.assertMatches(tmpModel, tmpDataset);
+        }
+
+        assertEquals(100, tmpDataset.getItemCount(0));
+        assertEquals(900.0, tmpDataset.getXValue(0, 0));
+    }
+
+    @Test
+    public void testFlush() {
+
+        final PrimitiveTimeSeriesDataset tmpDataset = new PrimitiveTimeSeriesDataset();
+        tmpDataset.addLiveSeries("Live", 10, 0L, false);
+
+        final int[] tmpEvents = { 0 };
+        tmpDataset.addChangeListener(event -> tmpEvents[0]++);
+
+        for (int i = 0; i < 25; i++) {
+            tmpDataset.append(0, i, i);
+        }
+        assertEquals(0, tmpEvents[0]);
+
+        tmpDataset.flush();
+        assertEquals(1, tmpEvents[0]);
+
+        tmpDataset.flush();
+        assertEquals(1, tmpEvents[0]);
+    }
+
+    @Test
+    public void testRangedWithWindow() {
+
+        final Random tmpRandom = new Random(456L);
+
+        final PrimitiveTimeSeriesDataset tmpDataset = new PrimitiveTimeSeriesDataset();
+        tmpDataset.addLiveSeries("Live", 1000, 50L, true);
+        final Model tmpModel = new Model(1000, 50L);
+
+        long tmpMillis = 0L;
+        for (int i = 0; i < 2000; i++) {
+            // Irregular steps, including duplicate timestamps and occasional gaps longer than the window
+            tmpMillis += tmpRandom.nextInt(100) == 0 ? 200 : tmpRandom.nextInt(6);
+            final double tmpValue = Math.cos(i / 100.0) + tmpRandom.nextGaussian();
+            final double tmpSpread = tmpRandom.nextDouble();
+            tmpDataset.append(0, tmpMillis, tmpValue - tmpSpread, tmpValue, tmpValue + tmpSpread);
+            tmpModel.append(tmpMillis, tmpValue - tmpSpread, tmpValue, tmpValue + tmpSpread);
+            LiveSeriesTest.assertMatches(tmpModel, tmpDataset);
+        }
+    }
+
+    @Test
+    public void testVisibleRange() {
+
+        final PrimitiveTimeSeriesDataset tmpDataset = new PrimitiveTimeSeriesDataset();
+        tmpDataset.addLiveSeries("Live", 10, 0L, false);
+
+        for (int i = 0; i < 10; i++) {
+            tmpDataset.append(0, i, i % 2 == 0 ? i : -i);
+        }
+
+        assertEquals(new Range(-9.0, 8.0), tmpDataset.getRangeBounds(null, null, false));
+        assertEquals(new Range(-5.0, 4.0), tmpDataset.getRangeBounds(null, new Range(2.0, 5.0), false));
+    }
+
+}
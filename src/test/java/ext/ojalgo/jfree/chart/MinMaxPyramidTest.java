@@ -0,0 +1,151 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class MinMaxPyramidTest {
+
+    /**
+     * A ranged series with some NaN values (and low/high values)
+     */
+    private static PrimitiveTimeSeriesDataset.Series newSeries(final Random random, final int count) {
+
+        final long[] tmpMillis = new long[count];
+        final double[] tmpValues = new double[count];
+        final double[] tmpLow = new double[count];
+        final double[] tmpHigh = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            tmpMillis[i] = 1000L * i;
+            tmpValues[i] = random.nextInt(50) == 0 ? Double.NaN : Math.sin(i / 100.0) + random.nextGaussian();
+            final double tmpSpread = random.nextDouble();
+            tmpLow[i] = random.nextInt(50) == 0 ? Double.NaN : tmpValues[i] - tmpSpread;
+            tmpHigh[i] = random.nextInt(50) == 0 ? Double.NaN : tmpValues[i] + tmpSpread;
+        }
+
+        final PrimitiveTimeSeriesDataset.Ranges tmpRanges = new PrimitiveTimeSeriesDataset.Ranges(tmpLow, tmpHigh, null);
+        return new PrimitiveTimeSeriesDataset.ExplicitSeries("Series", tmpMillis, tmpValues, tmpRanges, count);
+    }
+
+    /**
+     * Compare the extent with a linear scan over the items in [first, limit)
+     */
+    private static void assertScan(final PrimitiveTimeSeriesDataset.Series series, final int first, final int limit, final MinMaxPyramid.Extent extent) {
+
+        double tmpMin = Double.NaN;
+        double tmpMax = Double.NaN;
+        double tmpLow = Double.POSITIVE_INFINITY;
+        double tmpHigh = Double.NEGATIVE_INFINITY;
+
+        for (int i = first; i < limit; i++) {
+            final double tmpValue = series.value(i);
+            if (!Double.isNaN(tmpValue)) {
+                tmpMin = Double.isNaN(tmpMin) ? tmpValue : Math.min(tmpMin, tmpValue);
+                tmpMax = Double.isNaN(tmpMax) ? tmpValue : Math.max(tmpMax, tmpValue);
+            }
+            if (!Double.isNaN(series.low(i))) {
+                tmpLow = Math.min(tmpLow, series.low(i));
+            }
+            if (!Double.isNaN(series.high(i))) {
+                tmpHigh = Math.max(tmpHigh, series.high(i));
+            }
+        }
+
+        final String tmpMessage = "[" + first + ", " + limit + ")";
+
+        if (first >= limit) {
+            assertEquals(-1, extent.minIndex, tmpMessage);
+            assertEquals(-1, extent.maxIndex, tmpMessage);
+        } else {
+            assertTrue((first <= extent.minIndex) && (extent.minIndex < limit), tmpMessage);
+            assertTrue((first <= extent.maxIndex) && (extent.maxIndex < limit), tmpMessage);
+            assertEquals(tmpMin, series.value(extent.minIndex), tmpMessage);
+            assertEquals(tmpMax, series.value(extent.maxIndex), tmpMessage);
+        }
+        assertEquals(tmpLow, extent.low, tmpMessage);
+        assertEquals(tmpHigh, extent.high, tmpMessage);
+    }
+
+    @Test
+    public void testBuckets() {
+
+        final PrimitiveTimeSeriesDataset.Series tmpSeries = MinMaxPyramidTest.newSeries(new Random(123L), 1000);
+        final MinMaxPyramid tmpPyramid = new MinMaxPyramid(tmpSeries);
+        final MinMaxPyramid.Extent tmpExtent = new MinMaxPyramid.Extent();
+
+        assertEquals(9, tmpPyramid.getLevels());
+
+        for (int l = 0; l < tmpPyramid.getLevels(); l++) {
+            final int tmpSize = tmpPyramid.getBucketSize(l);
+            for (int b = 0; b < (1000 / tmpSize); b++) {
+                tmpPyramid.bucket(l, b, tmpExtent);
+                MinMaxPyramidTest.assertScan(tmpSeries, b * tmpSize, (b + 1) * tmpSize, tmpExtent);
+            }
+        }
+    }
+
+    @Test
+    public void testQueryAllRanges() {
+
+        final PrimitiveTimeSeriesDataset.Series tmpSeries = MinMaxPyramidTest.newSeries(new Random(456L), 77);
+        final MinMaxPyramid tmpPyramid = new MinMaxPyramid(tmpSeries);
+        final MinMaxPyramid.Extent tmpExtent = new MinMaxPyramid.Extent();
+
+        for (int tmpFirst = 0; tmpFirst <= 77; tmpFirst++) {
+            for (int tmpLimit = tmpFirst; tmpLimit <= 77; tmpLimit++) {
+                tmpPyramid.query(tmpFirst, tmpLimit, tmpExtent);
+                MinMaxPyramidTest.assertScan(tmpSeries, tmpFirst, tmpLimit, tmpExtent);
+            }
+        }
+    }
+
+    @Test
+    public void testQueryRandomRanges() {
+
+        final Random tmpRandom = new Random(789L);
+
+        for (final int tmpCount : new int[] { 1, 2, 3, 1024, 4099, 100_000 }) {
+
+            final PrimitiveTimeSeriesDataset.Series tmpSeries = MinMaxPyramidTest.newSeries(tmpRandom, tmpCount);
+            final MinMaxPyramid tmpPyramid = new MinMaxPyramid(tmpSeries);
+            final MinMaxPyramid.Extent tmpExtent = new MinMaxPyramid.Extent();
+
+            for (int q = 0; q < 500; q++) {
+                final int tmpA = tmpRandom.nextInt(tmpCount + 1);
+                final int tmpB = tmpRandom.nextInt(tmpCount + 1);
+                final int tmpFirst = Math.min(tmpA, tmpB);
+                final int tmpLimit = Math.max(tmpA, tmpB);
+                tmpPyramid.query(tmpFirst, tmpLimit, tmpExtent);
+                MinMaxPyramidTest.assertScan(tmpSeries, tmpFirst, tmpLimit, tmpExtent);
+            }
+
+            tmpPyramid.query(0, tmpCount, tmpExtent);
+            MinMaxPyramidTest.assertScan(tmpSeries, 0, tmpCount, tmpExtent);
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class P2QuantileTest {
+
+    private static final double[] PROBABILITIES = { 0.05, 0.25, 0.5, 0.75, 0.95 };
+
+    /**
+     * The fraction of the (sorted) sample that is less than the value
+     */
+    private static double rank(final double[] sorted, final double value) {
+        int tmpIndex = Arrays.binarySearch(sorted, value);
+        if (tmpIndex < 0) {
+            tmpIndex = -(tmpIndex + 1);
+        }
+        return tmpIndex / (double) sorted.length;
+    }
+
+    @Test
+    public void testFewObservationsAreExact() {
+
+        final P2Quantile tmpMedian = new P2Quantile(0.5);
+        assertTrue(Double.isNaN(tmpMedian.getQuantile()));
+
+        tmpMedian.add(3.0);
+        tmpMedian.add(1.0);
+        tmpMedian.add(2.0);
+
+        assertEquals(3L, tmpMedian.count());
+        assertEquals(2.0, tmpMedian.getQuantile());
+    }
+
+    @Test
+    public void testGaussianSample() {
+
+        final Random tmpRandom = new Random(123L);
+        final double[] tmpSample = new double[100_000];
+        for (int i = 0; i < tmpSample.length; i++) {
+            tmpSample[i] = tmpRandom.nextGaussian();
+        }
+
+        this.doTest(tmpSample);
+    }
+
+    @Test
+    public void testNaNIsIgnored() {
+
+        final P2Quantile tmpMedian = new P2Quantile(0.5);
+        for (int i = 1; i <= 9; i++) {
+            tmpMedian.add(i);
+            tmpMedian.add(Double.NaN);
+        }
+
+        assertEquals(9L, tmpMedian.count());
+        assertEquals(5.0, tmpMedian.getQuantile(), 0.5);
+    }
+
+    @Test
+    public void testSkewedSample() {
+
+        final Random tmpRandom = new Random(456L);
+        final double[] tmpSample = new double[100_000];
+        for (int i = 0; i < tmpSample.length; i++) {
+            tmpSample[i] = Math.exp(tmpRandom.nextGaussian());
+        }
+
+        this.doTest(tmpSample);
+    }
+
+    private void doTest(final double[] sample) {
+
+        final P2Quantile[] tmpEstimators = new P2Quantile[PROBABILITIES.length];
+        for (int p = 0; p < PROBABILITIES.length; p++) {
+            tmpEstimators[p] = new P2Quantile(PROBABILITIES[p]);
+        }
+
+        for (final double tmpValue : sample) {
+            for (final P2Quantile tmpEstimator : tmpEstimators) {
+                tmpEstimator.add(tmpValue);
+            }
+        }
+
+        final double[] tmpSorted = sample.clone();
+        Arrays.sort(tmpSorted);
+
+        for (int p = 0; p < PROBABILITIES.length; p++) {
+            final double tmpExact = tmpSorted[(int) Math.round(PROBABILITIES[p] * (tmpSorted.length - 1))];
+            final double tmpEstimate = tmpEstimators[p].getQuantile();
+            assertEquals(sample.length, tmpEstimators[p].count());
+            assertEquals(PROBABILITIES[p], P2QuantileTest.rank(tmpSorted, tmpEstimate), 0.005, "Rank of the " + PROBABILITIES[p] + " quantile");
+            assertEquals(tmpExact, tmpEstimate, 0.01 * Math.max(1.0, Math.abs(tmpExact)), "Value of the " + PROBABILITIES[p] + " quantile");
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import ext.ojalgo.jfree.chart.JFreeChartBuilder.PngParameters;
+
+public class PngEncoderTest {
+
+    private static final int[][] SIZES = { { 1, 1 }, { 1, 9 }, { 7, 3 }, { 33, 17 }, { 101, 2 } };
+
+    /**
+     * Encode, decode with ImageIO and compare every pixel
+     */
+    private static void assertRoundTrip(final PngEncoder encoder, final BufferedImage image, final String message) throws IOException {
+
+        final ByteArrayOutputStream tmpOutput = new ByteArrayOutputStream();
+        encoder.write(image, tmpOutput);
+
+        final BufferedImage tmpDecoded = ImageIO.read(new ByteArrayInputStream(tmpOutput.toByteArray()));
+        assertNotNull(tmpDecoded, message);
+        assertEquals(image.getWidth(), tmpDecoded.getWidth(), message);
+        assertEquals(image.getHeight(), tmpDecoded.getHeight(), message);
+
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                assertEquals(image.getRGB(x, y), tmpDecoded.getRGB(x, y), message + " at (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    /**
+     * An image with (at most) the given number of distinct colours, in runs as well as scattered
+     */
+    private static BufferedImage newImage(final Random random, final int width, final int height, final int colours, final boolean alpha) {
+
+        final int[] tmpColours = new int[colours];
+        for (int c = 0; c < colours; c++) {
+            final int tmpAlpha = alpha ? (c % 3 == 0 ? 0x00 : c % 3 == 1 ? 0x80 : 0xFF) : 0xFF;
+            tmpColours[c] = (tmpAlpha << 24) | (random.nextInt() & 0xFFFFFF);
+        }
+
+        final BufferedImage retVal = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int tmpColour = tmpColours[0];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (random.nextInt(4) == 0) {
+                    tmpColour = tmpColours[random.nextInt(colours)];
+                }
+                retVal.setRGB(x, y, tmpColour);
+            }
+        }
+
+        return retVal;
+    }
+
+    @Test
+    public void testAllFilters() throws IOException {
+
+        final Random tmpRandom = new Random(123L);
+
+        for (final PngParameters.Filter tmpFilter : PngParameters.Filter.values()) {
+            for (final boolean tmpPalette : new boolean[] { false, true }) {
+                final PngEncoder tmpEncoder = new PngEncoder(Deflater.DEFAULT_COMPRESSION, tmpFilter, tmpPalette);
+                for (final int tmpColours : new int[] { 1, 2, 3, 4, 5, 16, 17, 255, 256, 257, 5000 }) {
+                    for (final boolean tmpAlpha : new boolean[] { false, true }) {
+                        for (final int[] tmpSize : SIZES) {
+                            final BufferedImage tmpImage = PngEncoderTest.newImage(tmpRandom, tmpSize[0], tmpSize[1], tmpColours, tmpAlpha);
+                            final String tmpMessage = tmpFilter + " palette=" + tmpPalette + " colours=" + tmpColours + " alpha=" + tmpAlpha + " "
+                                    + tmpSize[0] + "x" + tmpSize[1];
+                            PngEncoderTest.assertRoundTrip(tmpEncoder, tmpImage, tmpMessage);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompressionLevels() throws IOException {
+
+        final Random tmpRandom = new Random(456L);
+        final BufferedImage tmpImage = PngEncoderTest.newImage(tmpRandom, 64, 48, 20, true);
+
+        for (int tmpLevel = Deflater.NO_COMPRESSION; tmpLevel <= Deflater.BEST_COMPRESSION; tmpLevel++) {
+            PngEncoderTest.assertRoundTrip(new PngEncoder(tmpLevel, PngParameters.Filter.ADAPTIVE, false), tmpImage, "level=" + tmpLevel);
+            PngEncoderTest.assertRoundTrip(new PngEncoder(tmpLevel, PngParameters.Filter.ADAPTIVE, true), tmpImage, "level=" + tmpLevel);
+        }
+    }
+
+    @Test
+    public void testLargeImage() throws IOException {
+
+        // More than one IDAT chunk
+        final Random tmpRandom = new Random(789L);
+
+        for (final boolean tmpPalette : new boolean[] { false, true }) {
+            final PngEncoder tmpEncoder = new PngEncoder(Deflater.BEST_SPEED, PngParameters.Filter.ADAPTIVE, tmpPalette);
+            PngEncoderTest.assertRoundTrip(tmpEncoder, PngEncoderTest.newImage(tmpRandom, 513, 257, 5000, true), "palette=" + tmpPalette);
+            PngEncoderTest.assertRoundTrip(tmpEncoder, PngEncoderTest.newImage(tmpRandom, 513, 257, 200, false), "palette=" + tmpPalette);
+        }
+    }
+
+    @Test
+    public void testOtherImageType() throws IOException {
+
+        // Not TYPE_INT_ARGB, so the pixels are copied with getRGB
+        final BufferedImage tmpImage = new BufferedImage(31, 13, BufferedImage.TYPE_INT_RGB);
+        final Random tmpRandom = new Random(321L);
+        for (int y = 0; y < tmpImage.getHeight(); y++) {
+            for (int x = 0; x < tmpImage.getWidth(); x++) {
+                tmpImage.setRGB(x, y, tmpRandom.nextInt(3) * 0x405060);
+            }
+        }
+
+        for (final PngParameters.Filter tmpFilter : PngParameters.Filter.values()) {
+            PngEncoderTest.assertRoundTrip(new PngEncoder(Deflater.DEFAULT_COMPRESSION, tmpFilter, false), tmpImage, tmpFilter.name());
+            PngEncoderTest.assertRoundTrip(new PngEncoder(Deflater.DEFAULT_COMPRESSION, tmpFilter, true), tmpImage, tmpFilter.name());
+        }
+    }
+
+    @Test
+    public void testPalette() {
+
+        assertArrayEquals(new int[] { 1, 2, 3 }, PngEncoder.palette(new int[] { 1, 1, 2, 1, 3, 3, 2 }));
+        assertArrayEquals(new int[0], PngEncoder.palette(new int[0]));
+
+        final int[] tmpColours = new int[257];
+        for (int c = 0; c < tmpColours.length; c++) {
+            tmpColours[c] = c * 0x010203;
+        }
+        assertNull(PngEncoder.palette(tmpColours));
+        assertEquals(256, PngEncoder.palette(Arrays.copyOf(tmpColours, 256)).length);
+    }
+
+}
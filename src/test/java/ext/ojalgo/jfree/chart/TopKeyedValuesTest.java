@@ -0,0 +1,173 @@
+/*
+ * Copyright 1997-2021 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ext.ojalgo.jfree.chart;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.jfree.data.general.DefaultKeyedValuesDataset;
+import org.junit.jupiter.api.Test;
+
+public class TopKeyedValuesTest {
+
+    private static final String OTHER = "Other";
+
+    /**
+     * Offer distinct random values (in random order) and compare with sorting them all
+     */
+    private static void doTest(final Random random, final int capacity, final int count) {
+
+        final double[] tmpValues = new double[count];
+        for (int i = 0; i < count; i++) {
+            tmpValues[i] = random.nextInt(3) == 0 ? -random.nextDouble() : 1_000.0 * random.nextDouble();
+        }
+
+        final TopKeyedValues tmpTop = new TopKeyedValues(capacity, OTHER);
+        for (int i = 0; i < count; i++) {
+            tmpTop.offer(i, tmpValues[i]);
+        }
+        final DefaultKeyedValuesDataset tmpDataset = tmpTop.toDataset();
+
+        final Integer[] tmpOrder = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            tmpOrder[i] = i;
+        }
+        Arrays.sort(tmpOrder, (first, second) -> Double.compare(tmpValues[second], tmpValues[first]));
+
+        final int tmpKept = Math.min(capacity, count);
+        final String tmpMessage = "capacity=" + capacity + " count=" + count;
+
+        assertEquals(count > capacity ? tmpKept + 1 : tmpKept, tmpDataset.getItemCount(), tmpMessage);
+
+        for (int i = 0; i < tmpKept; i++) {
+            assertEquals(tmpOrder[i], tmpDataset.getKey(i), tmpMessage);
+            assertEquals(tmpValues[tmpOrder[i]], tmpDataset.getValue(i).doubleValue(), tmpMessage);
+        }
+
+        if (count > capacity) {
+            double tmpOther = 0.0;
+            for (int i = tmpKept; i < count; i++) {
+                tmpOther += tmpValues[tmpOrder[i]];
+            }
+            assertEquals(OTHER, tmpDataset.getKey(tmpKept), tmpMessage);
+            assertEquals(tmpOther, tmpDataset.getValue(tmpKept).doubleValue(), 1E-9 * count * 1_000.0, tmpMessage);
+        }
+    }
+
+    @Test
+    public void testCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new TopKeyedValues(0, OTHER));
+    }
+
+    @Test
+    public void testNaNIsIgnored() {
+
+        final TopKeyedValues tmpTop = new TopKeyedValues(2, OTHER);
+        tmpTop.offer("A", 1.0);
+        tmpTop.offer("B", Double.NaN);
+        tmpTop.offer("C", 3.0);
+        tmpTop.offer("D", Double.NaN);
+
+        final DefaultKeyedValuesDataset tmpDataset = tmpTop.toDataset();
+        assertEquals(2, tmpDataset.getItemCount());
+        assertEquals("C", tmpDataset.getKey(0));
+        assertEquals("A", tmpDataset.getKey(1));
+    }
+
+    @Test
+    public void testOtherKeyIsMerged() {
+
+        final TopKeyedValues tmpTop = new TopKeyedValues(2, OTHER);
+        tmpTop.offer(OTHER, 10.0);
+        tmpTop.offer("A", 1.0);
+        tmpTop.offer("B", 2.0);
+        tmpTop.offer("C", 3.0);
+
+        final DefaultKeyedValuesDataset tmpDataset = tmpTop.toDataset();
+        assertEquals(3, tmpDataset.getItemCount());
+        assertEquals("C", tmpDataset.getKey(0));
+        assertEquals("B", tmpDataset.getKey(1));
+        assertEquals(OTHER, tmpDataset.getKey(2));
+        assertEquals(11.0, tmpDataset.getValue(2).doubleValue());
+    }
+
+    @Test
+    public void testRandom() {
+
+        final Random tmpRandom = new Random(123L);
+
+        for (final int tmpCapacity : new int[] { 1, 2, 5, 10, 100 }) {
+            for (final int tmpCount : new int[] { 0, 1, 2, 9, 10, 11, 1000, 100_000 }) {
+                TopKeyedValuesTest.doTest(tmpRandom, tmpCapacity, tmpCount);
+            }
+        }
+    }
+
+    @Test
+    public void testResize() {
+
+        final TopKeyedValues tmpTop = new TopKeyedValues(3, OTHER);
+        tmpTop.offer("A", 1.0);
+        tmpTop.offer("B", 2.0);
+        tmpTop.offer("C", 3.0);
+        tmpTop.offer("D", 0.5);
+
+        final TopKeyedValues tmpResized = tmpTop.resize(1, OTHER);
+        tmpResized.offer("E", 0.25);
+
+        final DefaultKeyedValuesDataset tmpDataset = tmpResized.toDataset();
+        assertEquals(2, tmpDataset.getItemCount());
+        assertEquals("C", tmpDataset.getKey(0));
+        assertEquals(3.0, tmpDataset.getValue(0).doubleValue());
+        assertEquals(OTHER, tmpDataset.getKey(1));
+        assertEquals(3.75, tmpDataset.getValue(1).doubleValue());
+    }
+
+    @Test
+    public void testReplaceValue() {
+
+        final TopKeyedValues tmpTop = new TopKeyedValues(3, OTHER);
+        tmpTop.offer("A", 1.0);
+        tmpTop.offer("B", 2.0);
+        tmpTop.offer("C", 3.0);
+
+        // Kept keys get their value replaced - both down and up the heap
+        tmpTop.offer("C", 0.5);
+        tmpTop.offer("A", 4.0);
+
+        tmpTop.offer("D", 0.25);
+
+        final DefaultKeyedValuesDataset tmpDataset = tmpTop.toDataset();
+        assertEquals(4, tmpDataset.getItemCount());
+        assertEquals("A", tmpDataset.getKey(0));
+        assertEquals(4.0, tmpDataset.getValue(0).doubleValue());
+        assertEquals("B", tmpDataset.getKey(1));
+        assertEquals(2.0, tmpDataset.getValue(1).doubleValue());
+        assertEquals("C", tmpDataset.getKey(2));
+        assertEquals(0.5, tmpDataset.getValue(2).doubleValue());
+        assertEquals(OTHER, tmpDataset.getKey(3));
+        assertEquals(0.25, tmpDataset.getValue(3).doubleValue());
+    }
+
+}